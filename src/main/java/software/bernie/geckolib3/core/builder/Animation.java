@@ -7,10 +7,15 @@ package software.bernie.geckolib3.core.builder;
 
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import software.bernie.geckolib3.core.builder.ILoopType.EDefaultLoopTypes;
+import software.bernie.geckolib3.core.keyframe.BakedBoneAnimation;
 import software.bernie.geckolib3.core.keyframe.BoneAnimation;
 import software.bernie.geckolib3.core.keyframe.EventKeyFrame;
 import software.bernie.geckolib3.core.keyframe.ParticleEventKeyFrame;
+import software.bernie.geckolib3.core.processor.AnimationProcessor;
+import software.bernie.geckolib3.core.processor.BoneBinding;
 
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 /**
@@ -25,4 +30,171 @@ public class Animation {
 	public List<ParticleEventKeyFrame> particleKeyFrames = new ObjectArrayList<>();
 	public List<EventKeyFrame<String>> customInstructionKeyframes = new ObjectArrayList<>();
 
+	// Arrays of a generic type can't be created, only this raw empty one to copy
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static final EventKeyFrame<String>[] NO_STRING_KEY_FRAMES = new EventKeyFrame[0];
+
+	private volatile BoneBinding[] boneBindings = new BoneBinding[0];
+	private volatile boolean isNormalized = false;
+	// Read by every thread animating this, and only written under its lock
+	private volatile EventKeyFrame<String>[] sortedSoundKeyFrames;
+	private volatile ParticleEventKeyFrame[] sortedParticleKeyFrames;
+	private volatile EventKeyFrame<String>[] sortedCustomInstructionKeyFrames;
+	private boolean usesMolang = true;
+
+	/**
+	 * Replaces every keyframe value that is a constant Molang expression with a
+	 * pre-converted {@link software.bernie.geckolib3.core.ConstantValue}, and
+	 * flags whether any of the remaining values need Molang to be evaluated. This
+	 * is done automatically the first time the animation is bound to a model.
+	 */
+	public synchronized void normalize() {
+		boolean usesMolang = false;
+
+		for (BoneAnimation boneAnimation : this.boneAnimations) {
+			if (!boneAnimation.normalize())
+				usesMolang = true;
+		}
+
+		this.usesMolang = usesMolang;
+		sortEventKeyFrames();
+		this.isNormalized = true;
+	}
+
+	/**
+	 * Sorts each type of event keyframe by start tick, so controllers can fire them
+	 * by advancing a cursor. This is done automatically when normalizing, and again
+	 * if any event keyframes are added afterwards.
+	 */
+	public synchronized void sortEventKeyFrames() {
+		this.sortedSoundKeyFrames = sortByStartTick(this.soundKeyFrames, NO_STRING_KEY_FRAMES);
+		this.sortedParticleKeyFrames = sortByStartTick(this.particleKeyFrames, new ParticleEventKeyFrame[0]);
+		this.sortedCustomInstructionKeyFrames = sortByStartTick(this.customInstructionKeyframes, NO_STRING_KEY_FRAMES);
+	}
+
+	/**
+	 * Gets the sound keyframes sorted by start tick. The returned array must not be
+	 * modified.
+	 */
+	public EventKeyFrame<String>[] getSortedSoundKeyFrames() {
+		EventKeyFrame<String>[] sorted = this.sortedSoundKeyFrames;
+
+		if (sorted == null || sorted.length != this.soundKeyFrames.size()) {
+			sortEventKeyFrames();
+
+			sorted = this.sortedSoundKeyFrames;
+		}
+
+		return sorted;
+	}
+
+	/**
+	 * Gets the particle keyframes sorted by start tick. The returned array must not
+	 * be modified.
+	 */
+	public ParticleEventKeyFrame[] getSortedParticleKeyFrames() {
+		ParticleEventKeyFrame[] sorted = this.sortedParticleKeyFrames;
+
+		if (sorted == null || sorted.length != this.particleKeyFrames.size()) {
+			sortEventKeyFrames();
+
+			sorted = this.sortedParticleKeyFrames;
+		}
+
+		return sorted;
+	}
+
+	/**
+	 * Gets the custom instruction keyframes sorted by start tick. The returned array
+	 * must not be modified.
+	 */
+	public EventKeyFrame<String>[] getSortedCustomInstructionKeyFrames() {
+		EventKeyFrame<String>[] sorted = this.sortedCustomInstructionKeyFrames;
+
+		if (sorted == null || sorted.length != this.customInstructionKeyframes.size()) {
+			sortEventKeyFrames();
+
+			sorted = this.sortedCustomInstructionKeyFrames;
+		}
+
+		return sorted;
+	}
+
+	private static <E extends EventKeyFrame<?>> E[] sortByStartTick(List<E> keyFrames, E[] emptyArray) {
+		E[] sorted = keyFrames.toArray(emptyArray);
+
+		Arrays.sort(sorted, Comparator.comparingDouble(EventKeyFrame::getStartTick));
+
+		return sorted;
+	}
+
+	public boolean isNormalized() {
+		return this.isNormalized;
+	}
+
+	/**
+	 * Whether any keyframe value of this animation depends on Molang. Always true
+	 * until the animation has been normalized.
+	 */
+	public boolean usesMolang() {
+		return this.usesMolang;
+	}
+
+	/**
+	 * Bakes every bone animation whose keyframe values are all constant, sampling
+	 * it at a fixed rate so it can be played back without evaluating its
+	 * keyframes. Bone animations that use Molang variables keep being evaluated
+	 * from their keyframes.<br>
+	 * Baked playback is only used by controllers that use the keyframes' own
+	 * easing (i.e. {@link software.bernie.geckolib3.core.easing.EasingType#NONE}).
+	 *
+	 * @param sampleRate How many samples to take per second of animation, e.g. 60
+	 * @return the number of bone animations that were baked
+	 */
+	public int bake(double sampleRate) {
+		if (sampleRate <= 0)
+			throw new IllegalArgumentException("Sample rate must be positive, got: " + sampleRate);
+
+		int bakedCount = 0;
+
+		for (BoneAnimation boneAnimation : this.boneAnimations) {
+			boneAnimation.baked = BakedBoneAnimation.bake(boneAnimation, sampleRate);
+
+			if (boneAnimation.baked != null)
+				bakedCount++;
+		}
+
+		return bakedCount;
+	}
+
+	/**
+	 * Gets the cached bone binding of this animation for the given processor, or
+	 * null if it hasn't been bound yet or the processor's bones have changed since.
+	 * Use {@link AnimationProcessor#bindAnimation} instead.
+	 */
+	public BoneBinding getBoneBinding(AnimationProcessor<?> processor) {
+		for (BoneBinding binding : this.boneBindings) {
+			if (binding.isBoundTo(processor, this.boneAnimations.size()))
+				return binding;
+		}
+
+		return null;
+	}
+
+	/**
+	 * Caches a bone binding for this animation, replacing any older binding for the
+	 * same processor and dropping any that have gone stale.
+	 */
+	public synchronized void putBoneBinding(BoneBinding binding) {
+		List<BoneBinding> bindings = new ObjectArrayList<>(this.boneBindings.length + 1);
+
+		for (BoneBinding existing : this.boneBindings) {
+			if (existing.processor() != binding.processor() && !existing.isStale())
+				bindings.add(existing);
+		}
+
+		bindings.add(binding);
+
+		this.boneBindings = bindings.toArray(new BoneBinding[0]);
+	}
 }
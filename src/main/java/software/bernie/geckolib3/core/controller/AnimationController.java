@@ -5,27 +5,23 @@
 
 package software.bernie.geckolib3.core.controller;
 
-import java.util.HashMap;
+import java.lang.ref.WeakReference;
 import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
 import java.util.Objects;
-import java.util.Optional;
 import java.util.Queue;
-import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import org.apache.commons.lang3.tuple.Pair;
-
 import com.eliotlash.mclib.math.IValue;
 
 import it.unimi.dsi.fastutil.doubles.Double2DoubleFunction;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
-import it.unimi.dsi.fastutil.objects.ObjectOpenHashSet;
 import software.bernie.geckolib3.core.AnimationState;
-import software.bernie.geckolib3.core.ConstantValue;
 import software.bernie.geckolib3.core.IAnimatable;
 import software.bernie.geckolib3.core.IAnimatableModel;
 import software.bernie.geckolib3.core.PlayState;
@@ -34,18 +30,21 @@ import software.bernie.geckolib3.core.builder.AnimationBuilder;
 import software.bernie.geckolib3.core.builder.ILoopType;
 import software.bernie.geckolib3.core.easing.EasingType;
 import software.bernie.geckolib3.core.event.CustomInstructionKeyframeEvent;
+import software.bernie.geckolib3.core.event.KeyframeEventSink;
 import software.bernie.geckolib3.core.event.ParticleKeyFrameEvent;
 import software.bernie.geckolib3.core.event.SoundKeyframeEvent;
 import software.bernie.geckolib3.core.event.predicate.AnimationEvent;
-import software.bernie.geckolib3.core.keyframe.AnimationPoint;
+import software.bernie.geckolib3.core.keyframe.AnimationPointSlot;
+import software.bernie.geckolib3.core.keyframe.BakedBoneAnimation;
 import software.bernie.geckolib3.core.keyframe.BoneAnimation;
 import software.bernie.geckolib3.core.keyframe.BoneAnimationQueue;
 import software.bernie.geckolib3.core.keyframe.EventKeyFrame;
 import software.bernie.geckolib3.core.keyframe.KeyFrame;
-import software.bernie.geckolib3.core.keyframe.KeyFrameLocation;
+import software.bernie.geckolib3.core.keyframe.KeyFrameCursor;
 import software.bernie.geckolib3.core.keyframe.ParticleEventKeyFrame;
 import software.bernie.geckolib3.core.keyframe.VectorKeyFrameList;
 import software.bernie.geckolib3.core.molang.MolangParser;
+import software.bernie.geckolib3.core.processor.AnimationProcessor;
 import software.bernie.geckolib3.core.processor.IBone;
 import software.bernie.geckolib3.core.snapshot.BoneSnapshot;
 import software.bernie.geckolib3.core.util.Axis;
@@ -56,7 +55,17 @@ import software.bernie.geckolib3.core.util.Axis;
  * @param <T> the type parameter
  */
 public class AnimationController<T extends IAnimatable> {
-	static List<ModelFetcher<?>> modelFetchers = new ObjectArrayList<>();
+	static List<ModelFetcher<?>> modelFetchers = new CopyOnWriteArrayList<>();
+	/**
+	 * Where keyframe events fired on each thread are collected instead of being
+	 * dispatched, see {@link AnimationController#setKeyframeEventSink}
+	 */
+	private static final ThreadLocal<KeyframeEventSink> keyframeEventSink = new ThreadLocal<>();
+	/**
+	 * Bumped whenever the models or animations controllers resolve could have
+	 * changed, invalidating every controller's cached model and animation
+	 */
+	private static final AtomicInteger reloadGeneration = new AtomicInteger();
 	/**
 	 * The Entity.
 	 */
@@ -100,11 +109,53 @@ public class AnimationController<T extends IAnimatable> {
 
 	public static void addModelFetcher(ModelFetcher<?> fetcher) {
 		modelFetchers.add(fetcher);
+		markResourcesReloaded();
 	}
 	
 	public static void removeModelFetcher(ModelFetcher<?> fetcher) {
 		Objects.requireNonNull(fetcher);
 		modelFetchers.remove(fetcher);
+		markResourcesReloaded();
+	}
+
+	/**
+	 * Invalidates the model and animation every controller has cached, so they are
+	 * resolved again on their next process call. Call this whenever models or
+	 * animations are reloaded.
+	 */
+	public static void markResourcesReloaded() {
+		reloadGeneration.incrementAndGet();
+	}
+
+	/**
+	 * Makes every keyframe event fired on the current thread get added to the given
+	 * sink instead of calling the listener straight away. Pass null to dispatch
+	 * events immediately again.
+	 *
+	 * @return the sink that was set before, so it can be restored
+	 */
+	public static KeyframeEventSink setKeyframeEventSink(KeyframeEventSink sink) {
+		KeyframeEventSink previous = keyframeEventSink.get();
+
+		if (sink == null) {
+			keyframeEventSink.remove();
+		}
+		else {
+			keyframeEventSink.set(sink);
+		}
+
+		return previous;
+	}
+
+	private static <E> void fireKeyframeEvent(Consumer<E> listener, E event) {
+		KeyframeEventSink sink = keyframeEventSink.get();
+
+		if (sink != null) {
+			sink.add(listener, event);
+		}
+		else {
+			listener.accept(event);
+		}
 	}
 
 	/**
@@ -167,19 +218,35 @@ public class AnimationController<T extends IAnimatable> {
 		void executeInstruction(CustomInstructionKeyframeEvent<A> event);
 	}
 
-	private final HashMap<String, BoneAnimationQueue> boneAnimationQueues = new HashMap<>();
+	private static final BoneAnimationQueue[] NO_BONE_ANIMATION_QUEUES = new BoneAnimationQueue[0];
+
+	// The queues and transition snapshots of each model this controller animates.
+	// There's usually only one, so a list is the fastest to search
+	private final List<ProcessorState> processorStates = new ObjectArrayList<>(1);
+	// The state of the processor that last called process
+	private ProcessorState processorState;
+	// Counts the transitions started, so each model saves its snapshots once per
+	// transition
+	private int transitionCount = 0;
 	public double tickOffset;
 	protected Queue<Animation> animationQueue = new LinkedList<>();
 	protected Animation currentAnimation;
 	protected AnimationBuilder currentAnimationBuilder = new AnimationBuilder();
 	protected boolean shouldResetTick = false;
-	private final HashMap<String, BoneSnapshot> boneSnapshots = new HashMap<>();
 	private boolean justStopped = false;
 	protected boolean justStartedTransition = false;
 	public Double2DoubleFunction customEasingMethod;
 	protected boolean needsAnimationReload = false;
+	private IAnimatableModel<T> cachedModel;
+	private int cachedModelGeneration;
+	private Animation resolvedAnimation;
+	private int resolvedAnimationGeneration;
 	public double animationSpeed = 1D;
-	private final Set<EventKeyFrame<?>> executedKeyFrames = new ObjectOpenHashSet<>();
+	// The index of the next event keyframe of each type to fire, in the current
+	// animation's event keyframes sorted by start tick
+	private int nextSoundKeyFrame = 0;
+	private int nextParticleKeyFrame = 0;
+	private int nextCustomInstructionKeyFrame = 0;
 
 	/**
 	 * This method sets the current animation with an animation builder. You can run
@@ -335,12 +402,14 @@ public class AnimationController<T extends IAnimatable> {
 	}
 
 	/**
-	 * Gets the current animation's bone animation queues.
+	 * Gets the bone animation queues of the processor that last called
+	 * {@link AnimationController#process}, indexed the same as its model renderer
+	 * list.
 	 *
 	 * @return the bone animation queues
 	 */
-	public HashMap<String, BoneAnimationQueue> getBoneAnimationQueues() {
-		return this.boneAnimationQueues;
+	public BoneAnimationQueue[] getBoneAnimationQueues() {
+		return this.processorState == null ? NO_BONE_ANIMATION_QUEUES : this.processorState.boneAnimationQueues;
 	}
 
 	/**
@@ -370,15 +439,20 @@ public class AnimationController<T extends IAnimatable> {
 	 *
 	 * @param tick                   The current tick + partial tick
 	 * @param event                  The animation test event
-	 * @param modelRendererList      The list of all AnimatedModelRender's
-	 * @param boneSnapshotCollection The bone snapshot collection
+	 * @param processor              The animation processor of the model
+	 * @param boneSnapshots          The animatable's bone snapshots, indexed the
+	 *                               same as the processor's model renderer list
 	 */
-	public void process(final double tick, AnimationEvent<T> event, List<IBone> modelRendererList,
-			Map<String, Pair<IBone, BoneSnapshot>> boneSnapshotCollection, MolangParser parser,
+	public void process(final double tick, AnimationEvent<T> event, AnimationProcessor<T> processor,
+			BoneSnapshot[] boneSnapshots, MolangParser parser,
 			boolean crashWhenCantFindBone) {
-		parser.setValue("query.life_time", () -> tick / 20);
+		parser.getVariable("query.life_time", null).set(tick / 20);
+
+		// Only look the current animation up again if it changed or was reloaded
+		int generation = reloadGeneration.get();
 
-		if (this.currentAnimation != null) {
+		if (this.currentAnimation != null && (this.currentAnimation != this.resolvedAnimation
+				|| this.resolvedAnimationGeneration != generation)) {
 			IAnimatableModel<T> model = getModel(this.animatable);
 
 			if (model != null) {
@@ -390,9 +464,12 @@ public class AnimationController<T extends IAnimatable> {
 					this.currentAnimation.loop = loop;
 				}
 			}
+
+			this.resolvedAnimation = this.currentAnimation;
+			this.resolvedAnimationGeneration = generation;
 		}
 
-		createInitialQueues(modelRendererList);
+		ProcessorState state = updateBoneAnimationQueues(processor);
 
 		double adjustedTick = adjustTick(tick);
 
@@ -437,34 +514,39 @@ public class AnimationController<T extends IAnimatable> {
 			if (adjustedTick == 0 || this.isJustStarting) {
 				this.justStartedTransition = false;
 				this.currentAnimation = animationQueue.poll();
+				this.transitionCount++;
 
 				resetEventKeyFrames();
-				saveSnapshotsForAnimation(this.currentAnimation, boneSnapshotCollection);
+			}
+			// Each model saves its snapshots the first time it's animated in a transition
+			if (state.savedTransition != this.transitionCount) {
+				saveSnapshotsForAnimation(this.currentAnimation, boneSnapshots, state, processor,
+						crashWhenCantFindBone);
+
+				state.savedTransition = this.transitionCount;
 			}
 			if (this.currentAnimation != null) {
-				setAnimTime(parser, 0);
-
-				for (BoneAnimation boneAnimation : this.currentAnimation.boneAnimations) {
-					BoneAnimationQueue boneAnimationQueue = this.boneAnimationQueues.get(boneAnimation.boneName);
-					BoneSnapshot boneSnapshot = this.boneSnapshots.get(boneAnimation.boneName);
-					Optional<IBone> first = Optional.empty();
-
-					for (IBone bone : modelRendererList) {
-						if (bone.getName().equals(boneAnimation.boneName)) {
-							first = Optional.of(bone);
-							break;
-						}
-					}
+				List<BoneAnimation> boneAnimations = this.currentAnimation.boneAnimations;
+				int[] boneIndexes = processor.bindAnimation(this.currentAnimation, crashWhenCantFindBone);
 
-					if (first.isEmpty()) {
-						if (crashWhenCantFindBone)
-							throw new RuntimeException("Could not find bone: " + boneAnimation.boneName);
+				if (this.currentAnimation.usesMolang())
+					setAnimTime(parser, 0);
 
+				for (int i = 0; i < boneIndexes.length; i++) {
+					int boneIndex = boneIndexes[i];
+
+					if (boneIndex < 0)
 						continue;
-					}
 
-					BoneSnapshot initialSnapshot = first.get().getInitialSnapshot();
-					assert boneSnapshot != null : "Bone snapshot was null";
+					BoneAnimation boneAnimation = boneAnimations.get(i);
+					BoneAnimationQueue boneAnimationQueue = state.boneAnimationQueues[boneIndex];
+					BoneSnapshot boneSnapshot = state.boneSnapshots[boneIndex];
+					BoneSnapshot initialSnapshot = boneAnimationQueue.bone().getInitialSnapshot();
+
+					// The animation changed without starting a new transition, so nothing was
+					// saved for this bone
+					if (boneSnapshot == null)
+						continue;
 
 					VectorKeyFrameList<KeyFrame<IValue>> rotationKeyFrames = boneAnimation.rotationKeyFrames;
 					VectorKeyFrameList<KeyFrame<IValue>> positionKeyFrames = boneAnimation.positionKeyFrames;
@@ -473,62 +555,62 @@ public class AnimationController<T extends IAnimatable> {
 					// Adding the initial positions of the upcoming animation, so the model
 					// transitions to the initial state of the new animation
 					if (!rotationKeyFrames.xKeyFrames.isEmpty()) {
-						AnimationPoint xPoint = getAnimationPointAtTick(rotationKeyFrames.xKeyFrames, 0, true, Axis.X);
-						AnimationPoint yPoint = getAnimationPointAtTick(rotationKeyFrames.yKeyFrames, 0, true, Axis.Y);
-						AnimationPoint zPoint = getAnimationPointAtTick(rotationKeyFrames.zKeyFrames, 0, true, Axis.Z);
-						boneAnimationQueue.rotationXQueue().add(new AnimationPoint(null, adjustedTick, this.transitionLengthTicks,
+						boneAnimationQueue.rotationXPoint().set(null, adjustedTick, this.transitionLengthTicks,
 								boneSnapshot.rotationValueX - initialSnapshot.rotationValueX,
-								xPoint.animationStartValue));
-						boneAnimationQueue.rotationYQueue().add(new AnimationPoint(null, adjustedTick, this.transitionLengthTicks,
+								getStartValueAtTick(rotationKeyFrames, Axis.X, 0, true));
+						boneAnimationQueue.rotationYPoint().set(null, adjustedTick, this.transitionLengthTicks,
 								boneSnapshot.rotationValueY - initialSnapshot.rotationValueY,
-								yPoint.animationStartValue));
-						boneAnimationQueue.rotationZQueue().add(new AnimationPoint(null, adjustedTick, this.transitionLengthTicks,
+								getStartValueAtTick(rotationKeyFrames, Axis.Y, 0, true));
+						boneAnimationQueue.rotationZPoint().set(null, adjustedTick, this.transitionLengthTicks,
 								boneSnapshot.rotationValueZ - initialSnapshot.rotationValueZ,
-								zPoint.animationStartValue));
+								getStartValueAtTick(rotationKeyFrames, Axis.Z, 0, true));
 					}
 
 					if (!positionKeyFrames.xKeyFrames.isEmpty()) {
-						AnimationPoint xPoint = getAnimationPointAtTick(positionKeyFrames.xKeyFrames, 0, false, Axis.X);
-						AnimationPoint yPoint = getAnimationPointAtTick(positionKeyFrames.yKeyFrames, 0, false, Axis.Y);
-						AnimationPoint zPoint = getAnimationPointAtTick(positionKeyFrames.zKeyFrames, 0, false, Axis.Z);
-						boneAnimationQueue.positionXQueue().add(new AnimationPoint(null, adjustedTick, this.transitionLengthTicks,
-								boneSnapshot.positionOffsetX, xPoint.animationStartValue));
-						boneAnimationQueue.positionYQueue().add(new AnimationPoint(null, adjustedTick, this.transitionLengthTicks,
-								boneSnapshot.positionOffsetY, yPoint.animationStartValue));
-						boneAnimationQueue.positionZQueue().add(new AnimationPoint(null, adjustedTick, this.transitionLengthTicks,
-								boneSnapshot.positionOffsetZ, zPoint.animationStartValue));
+						boneAnimationQueue.positionXPoint().set(null, adjustedTick, this.transitionLengthTicks,
+								boneSnapshot.positionOffsetX, getStartValueAtTick(positionKeyFrames, Axis.X, 0, false));
+						boneAnimationQueue.positionYPoint().set(null, adjustedTick, this.transitionLengthTicks,
+								boneSnapshot.positionOffsetY, getStartValueAtTick(positionKeyFrames, Axis.Y, 0, false));
+						boneAnimationQueue.positionZPoint().set(null, adjustedTick, this.transitionLengthTicks,
+								boneSnapshot.positionOffsetZ, getStartValueAtTick(positionKeyFrames, Axis.Z, 0, false));
 					}
 
 					if (!scaleKeyFrames.xKeyFrames.isEmpty()) {
-						AnimationPoint xPoint = getAnimationPointAtTick(scaleKeyFrames.xKeyFrames, 0, false, Axis.X);
-						AnimationPoint yPoint = getAnimationPointAtTick(scaleKeyFrames.yKeyFrames, 0, false, Axis.Y);
-						AnimationPoint zPoint = getAnimationPointAtTick(scaleKeyFrames.zKeyFrames, 0, false, Axis.Z);
-						boneAnimationQueue.scaleXQueue().add(new AnimationPoint(null, adjustedTick, this.transitionLengthTicks,
-								boneSnapshot.scaleValueX, xPoint.animationStartValue));
-						boneAnimationQueue.scaleYQueue().add(new AnimationPoint(null, adjustedTick, this.transitionLengthTicks,
-								boneSnapshot.scaleValueY, yPoint.animationStartValue));
-						boneAnimationQueue.scaleZQueue().add(new AnimationPoint(null, adjustedTick, this.transitionLengthTicks,
-								boneSnapshot.scaleValueZ, zPoint.animationStartValue));
+						boneAnimationQueue.scaleXPoint().set(null, adjustedTick, this.transitionLengthTicks,
+								boneSnapshot.scaleValueX, getStartValueAtTick(scaleKeyFrames, Axis.X, 0, false));
+						boneAnimationQueue.scaleYPoint().set(null, adjustedTick, this.transitionLengthTicks,
+								boneSnapshot.scaleValueY, getStartValueAtTick(scaleKeyFrames, Axis.Y, 0, false));
+						boneAnimationQueue.scaleZPoint().set(null, adjustedTick, this.transitionLengthTicks,
+								boneSnapshot.scaleValueZ, getStartValueAtTick(scaleKeyFrames, Axis.Z, 0, false));
 					}
 				}
 			}
 		}
 		else if (getAnimationState() == AnimationState.Running) {
 			// Actually run the animation
-			processCurrentAnimation(adjustedTick, tick, parser, crashWhenCantFindBone);
+			processCurrentAnimation(adjustedTick, tick, processor, parser, crashWhenCantFindBone);
 		}
 	}
 
 	private void setAnimTime(MolangParser parser, final double tick) {
-		parser.setValue("query.anim_time", () -> tick / 20);
+		parser.getVariable("query.anim_time", null).set(tick / 20);
 	}
 
 	private IAnimatableModel<T> getModel(T animatable) {
+		int generation = reloadGeneration.get();
+
+		if (this.cachedModel != null && this.cachedModelGeneration == generation)
+			return this.cachedModel;
+
 		for (ModelFetcher<?> modelFetcher : modelFetchers) {
 			IAnimatableModel<T> model = (IAnimatableModel<T>) modelFetcher.apply(animatable);
 
-			if (model != null)
+			if (model != null) {
+				this.cachedModel = model;
+				this.cachedModelGeneration = generation;
+
 				return model;
+			}
 		}
 
 		System.out.printf(
@@ -544,27 +626,24 @@ public class AnimationController<T extends IAnimatable> {
 
 	// At the beginning of a new transition, save a snapshot of the model's
 	// rotation, position, and scale values as the initial value to lerp from
-	private void saveSnapshotsForAnimation(Animation animation,
-			Map<String, Pair<IBone, BoneSnapshot>> boneSnapshotCollection) {
-		for (Pair<IBone, BoneSnapshot> snapshot : boneSnapshotCollection.values()) {
-			if (animation != null && animation.boneAnimations != null) {
-				for (BoneAnimation boneAnimation : animation.boneAnimations) {
-					if (boneAnimation.boneName.equals(snapshot.getLeft().getName())) {
-						this.boneSnapshots.put(boneAnimation.boneName, new BoneSnapshot(snapshot.getRight()));
-
-						break;
-					}
-				}
+	private void saveSnapshotsForAnimation(Animation animation, BoneSnapshot[] boneSnapshots, ProcessorState state,
+			AnimationProcessor<T> processor, boolean crashWhenCantFindBone) {
+		if (animation != null && animation.boneAnimations != null) {
+			for (int boneIndex : processor.bindAnimation(animation, crashWhenCantFindBone)) {
+				if (boneIndex >= 0)
+					state.boneSnapshots[boneIndex] = new BoneSnapshot(boneSnapshots[boneIndex]);
 			}
 		}
 	}
 
-	private void processCurrentAnimation(double tick, double actualTick, MolangParser parser,
-			boolean crashWhenCantFindBone) {
+	private void processCurrentAnimation(double tick, double actualTick, AnimationProcessor<T> processor,
+			MolangParser parser, boolean crashWhenCantFindBone) {
 		assert currentAnimation != null;
 		// Animation has ended
 		if (tick >= this.currentAnimation.animationLength) {
-			resetEventKeyFrames();
+			// Fire the events between the last frame and the end. A finished animation
+			// keeps its cursors at the end, so they don't fire again on the next frames
+			fireEventKeyFrames(this.currentAnimation.animationLength);
 			// If the current animation is set to loop, keep it as the current animation and
 			// just start over
 			if (!this.currentAnimation.loop.isRepeatingAfterEnd()) {
@@ -583,27 +662,49 @@ public class AnimationController<T extends IAnimatable> {
 					this.animationState = AnimationState.Transitioning;
 					this.shouldResetTick = true;
 					this.currentAnimation = this.animationQueue.peek();
+					resetEventKeyFrames();
 				}
 			}
+			else if (this.currentAnimation.animationLength > 0 && this.animationSpeed > 0) {
+				// Carry the time past the end over into the next loop, so animations that
+				// aren't evaluated every frame (see AnimationLodPolicy) don't drift
+				resetEventKeyFrames();
+
+				double overshoot = (tick - this.currentAnimation.animationLength)
+						% this.currentAnimation.animationLength;
+				this.tickOffset = actualTick - overshoot / this.animationSpeed;
+				tick = overshoot;
+			}
 			else {
 				// Reset the adjusted tick so the next animation starts at tick 0
+				resetEventKeyFrames();
 				this.shouldResetTick = true;
 				tick = adjustTick(actualTick);
 			}
 		}
 
-		setAnimTime(parser, tick);
-
 		// Loop through every boneanimation in the current animation and process the
 		// values
 		List<BoneAnimation> boneAnimations = currentAnimation.boneAnimations;
+		int[] boneIndexes = processor.bindAnimation(this.currentAnimation, crashWhenCantFindBone);
 
-		for (BoneAnimation boneAnimation : boneAnimations) {
-			BoneAnimationQueue boneAnimationQueue = boneAnimationQueues.get(boneAnimation.boneName);
+		// Fully constant animations don't read any Molang variables
+		if (this.currentAnimation.usesMolang())
+			setAnimTime(parser, tick);
 
-			if (boneAnimationQueue == null) {
-				if (crashWhenCantFindBone)
-					throw new RuntimeException("Could not find bone: " + boneAnimation.boneName);
+		for (int i = 0; i < boneIndexes.length; i++) {
+			int boneIndex = boneIndexes[i];
+
+			if (boneIndex < 0)
+				continue;
+
+			BoneAnimation boneAnimation = boneAnimations.get(i);
+			BoneAnimationQueue boneAnimationQueue = this.processorState.boneAnimationQueues[boneIndex];
+
+			// Baked bone animations already include the keyframes' easing, so they can
+			// only be used if the controller doesn't override it
+			if (boneAnimation.baked != null && this.easingType == EasingType.NONE) {
+				setBakedAnimationPoints(boneAnimationQueue, boneAnimation.baked, tick);
 
 				continue;
 			}
@@ -611,81 +712,74 @@ public class AnimationController<T extends IAnimatable> {
 			VectorKeyFrameList<KeyFrame<IValue>> rotationKeyFrames = boneAnimation.rotationKeyFrames;
 			VectorKeyFrameList<KeyFrame<IValue>> positionKeyFrames = boneAnimation.positionKeyFrames;
 			VectorKeyFrameList<KeyFrame<IValue>> scaleKeyFrames = boneAnimation.scaleKeyFrames;
+			KeyFrameCursor[] cursors = boneAnimationQueue.keyFrameCursors();
 
 			if (!rotationKeyFrames.xKeyFrames.isEmpty()) {
-				boneAnimationQueue.rotationXQueue()
-						.add(getAnimationPointAtTick(rotationKeyFrames.xKeyFrames, tick, true, Axis.X));
-				boneAnimationQueue.rotationYQueue()
-						.add(getAnimationPointAtTick(rotationKeyFrames.yKeyFrames, tick, true, Axis.Y));
-				boneAnimationQueue.rotationZQueue()
-						.add(getAnimationPointAtTick(rotationKeyFrames.zKeyFrames, tick, true, Axis.Z));
+				setAnimationPointAtTick(boneAnimationQueue.rotationXPoint(), rotationKeyFrames, Axis.X, tick, true,
+						cursors[0]);
+				setAnimationPointAtTick(boneAnimationQueue.rotationYPoint(), rotationKeyFrames, Axis.Y, tick, true,
+						cursors[1]);
+				setAnimationPointAtTick(boneAnimationQueue.rotationZPoint(), rotationKeyFrames, Axis.Z, tick, true,
+						cursors[2]);
 			}
 
 			if (!positionKeyFrames.xKeyFrames.isEmpty()) {
-				boneAnimationQueue.positionXQueue()
-						.add(getAnimationPointAtTick(positionKeyFrames.xKeyFrames, tick, false, Axis.X));
-				boneAnimationQueue.positionYQueue()
-						.add(getAnimationPointAtTick(positionKeyFrames.yKeyFrames, tick, false, Axis.Y));
-				boneAnimationQueue.positionZQueue()
-						.add(getAnimationPointAtTick(positionKeyFrames.zKeyFrames, tick, false, Axis.Z));
+				setAnimationPointAtTick(boneAnimationQueue.positionXPoint(), positionKeyFrames, Axis.X, tick, false,
+						cursors[3]);
+				setAnimationPointAtTick(boneAnimationQueue.positionYPoint(), positionKeyFrames, Axis.Y, tick, false,
+						cursors[4]);
+				setAnimationPointAtTick(boneAnimationQueue.positionZPoint(), positionKeyFrames, Axis.Z, tick, false,
+						cursors[5]);
 			}
 
 			if (!scaleKeyFrames.xKeyFrames.isEmpty()) {
-				boneAnimationQueue.scaleXQueue()
-						.add(getAnimationPointAtTick(scaleKeyFrames.xKeyFrames, tick, false, Axis.X));
-				boneAnimationQueue.scaleYQueue()
-						.add(getAnimationPointAtTick(scaleKeyFrames.yKeyFrames, tick, false, Axis.Y));
-				boneAnimationQueue.scaleZQueue()
-						.add(getAnimationPointAtTick(scaleKeyFrames.zKeyFrames, tick, false, Axis.Z));
+				setAnimationPointAtTick(boneAnimationQueue.scaleXPoint(), scaleKeyFrames, Axis.X, tick, false,
+						cursors[6]);
+				setAnimationPointAtTick(boneAnimationQueue.scaleYPoint(), scaleKeyFrames, Axis.Y, tick, false,
+						cursors[7]);
+				setAnimationPointAtTick(boneAnimationQueue.scaleZPoint(), scaleKeyFrames, Axis.Z, tick, false,
+						cursors[8]);
 			}
 		}
 
-		if (this.soundListener != null || this.particleListener != null || this.customInstructionListener != null) {
-			for (EventKeyFrame<String> soundKeyFrame : this.currentAnimation.soundKeyFrames) {
-				if (!this.executedKeyFrames.contains(soundKeyFrame) && tick >= soundKeyFrame.getStartTick()) {
-					SoundKeyframeEvent<T> event = new SoundKeyframeEvent<>(this.animatable, tick,
-							soundKeyFrame.getEventData(), this);
+		fireEventKeyFrames(tick);
 
-					this.soundListener.playSound(event);
-					this.executedKeyFrames.add(soundKeyFrame);
-				}
-			}
+		if (this.transitionLengthTicks == 0 && shouldResetTick && this.animationState == AnimationState.Transitioning)
+			this.currentAnimation = animationQueue.poll();
+	}
 
-			for (ParticleEventKeyFrame particleEventKeyFrame : this.currentAnimation.particleKeyFrames) {
-				if (!this.executedKeyFrames.contains(particleEventKeyFrame)
-						&& tick >= particleEventKeyFrame.getStartTick()) {
-					ParticleKeyFrameEvent<T> event = new ParticleKeyFrameEvent<>(this.animatable, tick,
-							particleEventKeyFrame.effect, particleEventKeyFrame.locator, particleEventKeyFrame.script,
-							this);
+	// Helper method to get the processor's bone animation queues. Each processor
+	// keeps its own, which are only rebuilt when its bones change
+	private ProcessorState updateBoneAnimationQueues(AnimationProcessor<T> processor) {
+		ProcessorState state = null;
 
-					this.particleListener.summonParticle(event);
-					this.executedKeyFrames.add(particleEventKeyFrame);
-				}
-			}
+		for (int i = 0; i < this.processorStates.size(); i++) {
+			ProcessorState candidate = this.processorStates.get(i);
 
-			for (EventKeyFrame<String> customInstructionKeyFrame : currentAnimation.customInstructionKeyframes) {
-				if (!this.executedKeyFrames.contains(customInstructionKeyFrame)
-						&& tick >= customInstructionKeyFrame.getStartTick()) {
-					CustomInstructionKeyframeEvent<T> event = new CustomInstructionKeyframeEvent<>(this.animatable,
-							tick, customInstructionKeyFrame.getEventData(), this);
+			if (candidate.processorReference.get() == processor) {
+				state = candidate;
 
-					this.customInstructionListener.executeInstruction(event);
-					this.executedKeyFrames.add(customInstructionKeyFrame);
-				}
+				break;
 			}
 		}
 
-		if (this.transitionLengthTicks == 0 && shouldResetTick && this.animationState == AnimationState.Transitioning)
-			this.currentAnimation = animationQueue.poll();
-	}
+		if (state == null || state.boneListRevision != processor.getBoneListRevision()) {
+			// The states only hold their processors weakly, so the ones of discarded
+			// processors are dropped here
+			this.processorStates.removeIf(candidate -> {
+				AnimationProcessor<?> candidateProcessor = candidate.processorReference.get();
+
+				return candidateProcessor == null || candidateProcessor == processor;
+			});
 
-	// Helper method to populate all the initial animation point queues
-	private void createInitialQueues(List<IBone> modelRendererList) {
-		this.boneAnimationQueues.clear();
+			state = new ProcessorState(processor);
 
-		for (IBone modelRenderer : modelRendererList) {
-			this.boneAnimationQueues.put(modelRenderer.getName(), new BoneAnimationQueue(modelRenderer));
+			this.processorStates.add(state);
 		}
+
+		this.processorState = state;
+
+		return state;
 	}
 
 	// Used to reset the "tick" everytime a new animation starts, a transition
@@ -709,60 +803,115 @@ public class AnimationController<T extends IAnimatable> {
 		}
 	}
 
-	// Helper method to transform a KeyFrameLocation to an AnimationPoint
-	private AnimationPoint getAnimationPointAtTick(List<KeyFrame<IValue>> frames, double tick, boolean isRotation,
-			Axis axis) {
-		KeyFrameLocation<KeyFrame<IValue>> location = getCurrentKeyFrameLocation(frames, tick);
-		KeyFrame<IValue> currentFrame = location.currentFrame;
-		double startValue = currentFrame.getStartValue().get();
-		double endValue = currentFrame.getEndValue().get();
+	// Helper method to fill an animation point slot with the keyframe at the given
+	// tick. If a cursor is given, the lookup steps forward from the last keyframe it
+	// was on
+	private void setAnimationPointAtTick(AnimationPointSlot slot, VectorKeyFrameList<KeyFrame<IValue>> track,
+			Axis axis, double tick, boolean isRotation, KeyFrameCursor cursor) {
+		double[] startTicks = track.getStartTicks(axis);
+		int index = cursor == null ? VectorKeyFrameList.findKeyFrameIndex(startTicks, tick)
+				: cursor.seek(startTicks, tick);
+		KeyFrame<IValue> currentFrame = track.getKeyFrames(axis).get(index);
+
+		slot.set(currentFrame, VectorKeyFrameList.getLocalTick(startTicks, index, tick), currentFrame.getLength(),
+				BoneAnimation.getKeyFrameValue(currentFrame.getStartValue(), axis, isRotation),
+				BoneAnimation.getKeyFrameValue(currentFrame.getEndValue(), axis, isRotation));
+	}
+
+	// Helper method to fill the animation point slots of a bone from its baked
+	// samples. The slots are filled with an already finished point so the
+	// processor uses the sampled value as is
+	private void setBakedAnimationPoints(BoneAnimationQueue boneAnimationQueue, BakedBoneAnimation baked,
+			double tick) {
+		if (baked.hasRotation()) {
+			setBakedAnimationPoint(boneAnimationQueue.rotationXPoint(), baked, BakedBoneAnimation.ROTATION, tick);
+			setBakedAnimationPoint(boneAnimationQueue.rotationYPoint(), baked, BakedBoneAnimation.ROTATION + 1, tick);
+			setBakedAnimationPoint(boneAnimationQueue.rotationZPoint(), baked, BakedBoneAnimation.ROTATION + 2, tick);
+		}
 
-		if (isRotation) {
-			if (!(currentFrame.getStartValue() instanceof ConstantValue)) {
-				startValue = Math.toRadians(startValue);
+		if (baked.hasPosition()) {
+			setBakedAnimationPoint(boneAnimationQueue.positionXPoint(), baked, BakedBoneAnimation.POSITION, tick);
+			setBakedAnimationPoint(boneAnimationQueue.positionYPoint(), baked, BakedBoneAnimation.POSITION + 1, tick);
+			setBakedAnimationPoint(boneAnimationQueue.positionZPoint(), baked, BakedBoneAnimation.POSITION + 2, tick);
+		}
 
-				if (axis == Axis.X || axis == Axis.Y)
-					startValue *= -1;
-			}
+		if (baked.hasScale()) {
+			setBakedAnimationPoint(boneAnimationQueue.scaleXPoint(), baked, BakedBoneAnimation.SCALE, tick);
+			setBakedAnimationPoint(boneAnimationQueue.scaleYPoint(), baked, BakedBoneAnimation.SCALE + 1, tick);
+			setBakedAnimationPoint(boneAnimationQueue.scaleZPoint(), baked, BakedBoneAnimation.SCALE + 2, tick);
+		}
+	}
 
-			if (!(currentFrame.getEndValue() instanceof ConstantValue)) {
-				endValue = Math.toRadians(endValue);
+	private static void setBakedAnimationPoint(AnimationPointSlot slot, BakedBoneAnimation baked, int channel,
+			double tick) {
+		float value = baked.getValue(channel, tick);
 
-				if (axis == Axis.X || axis == Axis.Y)
-					endValue *= -1;
-			}
-		}
+		slot.set(null, 0, 0, value, value);
+	}
+
+	// Gets the start value of the keyframe playing at the given tick
+	private double getStartValueAtTick(VectorKeyFrameList<KeyFrame<IValue>> track, Axis axis, double tick,
+			boolean isRotation) {
+		int index = VectorKeyFrameList.findKeyFrameIndex(track.getStartTicks(axis), tick);
 
-		return new AnimationPoint(currentFrame, location.currentTick, currentFrame.getLength(), startValue, endValue);
+		return BoneAnimation.getKeyFrameValue(track.getKeyFrames(axis).get(index).getStartValue(), axis, isRotation);
 	}
 
-	/**
-	 * Returns the current keyframe object, plus how long the previous keyframes
-	 * have taken (aka elapsed animation time)
-	 **/
-	private KeyFrameLocation<KeyFrame<IValue>> getCurrentKeyFrameLocation(List<KeyFrame<IValue>> frames,
-			double ageInTicks) {
-		double totalTimeTracker = 0;
+	// Fires every event keyframe the cursors have passed since the last frame
+	private void fireEventKeyFrames(double tick) {
+		if (this.soundListener != null) {
+			EventKeyFrame<String>[] soundKeyFrames = this.currentAnimation.getSortedSoundKeyFrames();
+
+			while (this.nextSoundKeyFrame < soundKeyFrames.length
+					&& tick >= soundKeyFrames[this.nextSoundKeyFrame].getStartTick()) {
+				EventKeyFrame<String> soundKeyFrame = soundKeyFrames[this.nextSoundKeyFrame++];
 
-		for (KeyFrame<IValue> frame : frames) {
-			totalTimeTracker += frame.getLength();
+				fireKeyframeEvent(this.soundListener::playSound,
+						new SoundKeyframeEvent<>(this.animatable, tick, soundKeyFrame.getEventData(), this));
+			}
+		}
+
+		if (this.particleListener != null) {
+			ParticleEventKeyFrame[] particleKeyFrames = this.currentAnimation.getSortedParticleKeyFrames();
 
-			if (totalTimeTracker > ageInTicks) {
-				double tick = (ageInTicks - (totalTimeTracker - frame.getLength()));
+			while (this.nextParticleKeyFrame < particleKeyFrames.length
+					&& tick >= particleKeyFrames[this.nextParticleKeyFrame].getStartTick()) {
+				ParticleEventKeyFrame particleEventKeyFrame = particleKeyFrames[this.nextParticleKeyFrame++];
 
-				return new KeyFrameLocation<>(frame, tick);
+				fireKeyframeEvent(this.particleListener::summonParticle,
+						new ParticleKeyFrameEvent<>(this.animatable, tick, particleEventKeyFrame.effect,
+								particleEventKeyFrame.locator, particleEventKeyFrame.script, this));
 			}
 		}
 
-		return new KeyFrameLocation<>(frames.get(frames.size() - 1), ageInTicks);
+		if (this.customInstructionListener != null) {
+			EventKeyFrame<String>[] customInstructionKeyFrames = this.currentAnimation
+					.getSortedCustomInstructionKeyFrames();
+
+			while (this.nextCustomInstructionKeyFrame < customInstructionKeyFrames.length
+					&& tick >= customInstructionKeyFrames[this.nextCustomInstructionKeyFrame].getStartTick()) {
+				EventKeyFrame<String> customInstructionKeyFrame = customInstructionKeyFrames[
+						this.nextCustomInstructionKeyFrame++];
+
+				fireKeyframeEvent(this.customInstructionListener::executeInstruction,
+						new CustomInstructionKeyframeEvent<>(this.animatable, tick,
+								customInstructionKeyFrame.getEventData(), this));
+			}
+		}
 	}
 
 	private void resetEventKeyFrames() {
-		this.executedKeyFrames.clear();
+		this.nextSoundKeyFrame = 0;
+		this.nextParticleKeyFrame = 0;
+		this.nextCustomInstructionKeyFrame = 0;
 	}
 
 	public void markNeedsReload() {
 		this.needsAnimationReload = true;
+		this.processorStates.clear();
+		this.processorState = null;
+		this.cachedModel = null;
+		this.resolvedAnimation = null;
 	}
 
 	public void clearAnimationCache() {
@@ -779,4 +928,27 @@ public class AnimationController<T extends IAnimatable> {
 
 	@FunctionalInterface
 	public interface ModelFetcher<T> extends Function<IAnimatable, IAnimatableModel<T>> {}
-}
\ No newline at end of file
+
+	// The bone animation queues and transition snapshots of one model, indexed the
+	// same as its model renderer list
+	private static final class ProcessorState {
+		private final WeakReference<AnimationProcessor<?>> processorReference;
+		private final BoneAnimationQueue[] boneAnimationQueues;
+		private final BoneSnapshot[] boneSnapshots;
+		private final int boneListRevision;
+		// The transition the snapshots were saved for
+		private int savedTransition = -1;
+
+		private ProcessorState(AnimationProcessor<?> processor) {
+			List<IBone> modelRendererList = processor.getModelRendererList();
+			this.processorReference = new WeakReference<>(processor);
+			this.boneAnimationQueues = new BoneAnimationQueue[modelRendererList.size()];
+			this.boneSnapshots = new BoneSnapshot[modelRendererList.size()];
+			this.boneListRevision = processor.getBoneListRevision();
+
+			for (int i = 0; i < this.boneAnimationQueues.length; i++) {
+				this.boneAnimationQueues[i] = new BoneAnimationQueue(modelRendererList.get(i));
+			}
+		}
+	}
+}
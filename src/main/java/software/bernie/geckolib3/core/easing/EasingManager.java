@@ -9,8 +9,13 @@ import software.bernie.geckolib3.core.util.Memoizer;
 public class EasingManager {
 	
 	public static double ease(double number, EasingType easingType, List<Double> easingArgs) {
+		Double2DoubleFunction easingFunction = NO_ARG_EASING_FUNCTIONS[easingType.ordinal()];
+
+		if (easingFunction != null)
+			return easingFunction.get(number);
+
 		Double firstArg = easingArgs == null || easingArgs.size() < 1 ? null : easingArgs.get(0);
-		return getEasingFunction.apply(new EasingFunctionArgs(easingType, firstArg)).apply(number);
+		return getEasingFunction.apply(new EasingFunctionArgs(easingType, firstArg)).get(number);
 	}
 
 	// Memoize easing functions so that we don't need to create new ones from HOFs every
@@ -19,6 +24,24 @@ public class EasingManager {
 	static Double2DoubleFunction quint = poly(5);
 	static Function<EasingFunctionArgs, Double2DoubleFunction> getEasingFunction = Memoizer
 			.memoize(EasingManager::getEasingFuncImpl);
+	// Easing functions that don't take an argument, indexed by easing type so they
+	// can be looked up without allocating a memoizer key
+	static final Double2DoubleFunction[] NO_ARG_EASING_FUNCTIONS = new Double2DoubleFunction[EasingType.values().length];
+
+	static {
+		for (EasingType easingType : EasingType.values()) {
+			if (!takesArgument(easingType))
+				NO_ARG_EASING_FUNCTIONS[easingType.ordinal()] = getEasingFuncImpl(new EasingFunctionArgs(easingType, null));
+		}
+	}
+
+	static boolean takesArgument(EasingType easingType) {
+		return switch (easingType) {
+		case Step, EaseInBack, EaseOutBack, EaseInOutBack, EaseInElastic, EaseOutElastic, EaseInOutElastic,
+				EaseInBounce, EaseOutBounce, EaseInOutBounce -> true;
+		default -> false;
+		};
+	}
 
 	// Don't call this, use getEasingFunction instead as that function is the
 	// memoized version
@@ -79,7 +102,7 @@ public class EasingManager {
 	 * Runs an easing function backwards.
 	 */
 	static Double2DoubleFunction out(Double2DoubleFunction easing) {
-		return t -> 1 - easing.apply(1 - t);
+		return t -> 1 - easing.get(1 - t);
 	}
 
 	/**
@@ -89,9 +112,9 @@ public class EasingManager {
 	static Double2DoubleFunction inOut(Double2DoubleFunction easing) {
 		return t -> {
 			if (t < 0.5) {
-				return easing.apply(t * 2) / 2;
+				return easing.get(t * 2) / 2;
 			}
-			return 1 - easing.apply((1 - t) * 2) / 2;
+			return 1 - easing.get((1 - t) * 2) / 2;
 		};
 	}
 
@@ -228,7 +251,7 @@ public class EasingManager {
 		Double2DoubleFunction w = x -> ((121.0 / 4.0) * k) * Math.pow(x - (6.0 / 11.0), 2) + 1 - k;
 		Double2DoubleFunction r = x -> 121 * k * k * Math.pow(x - (9.0 / 11.0), 2) + 1 - k * k;
 		Double2DoubleFunction t = x -> 484 * k * k * k * Math.pow(x - (10.5 / 11.0), 2) + 1 - k * k * k;
-		return x -> min(q.apply(x), w.apply(x), r.apply(x), t.apply(x));
+		return x -> min(q.get(x), w.get(x), r.get(x), t.get(x));
 	}
 
 	static Double2DoubleFunction step(Double stepArg) {
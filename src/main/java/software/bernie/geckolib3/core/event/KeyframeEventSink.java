@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2020.
+ * Author: Bernie G. (Gecko)
+ */
+
+package software.bernie.geckolib3.core.event;
+
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
+
+/**
+ * Collects the keyframe events fired while animating, so the sound, particle and
+ * custom instruction listeners are called in one batch after evaluation instead
+ * of in the middle of it. Events are delivered in the order they were fired.<br>
+ * The buffer is reused from one frame to the next. A sink isn't thread safe, it
+ * should only be filled and flushed from one thread at a time.
+ */
+public class KeyframeEventSink {
+	private final Executor executor;
+	private Consumer<?>[] listeners;
+	private Object[] events;
+	private int size;
+
+	/**
+	 * Creates a sink that calls the listeners on the thread that flushes it
+	 */
+	public KeyframeEventSink() {
+		this(null);
+	}
+
+	/**
+	 * Creates a sink that hands every flushed batch to the given executor, such
+	 * as one using virtual threads. The listeners are then called on the
+	 * executor's thread, so they must be safe to call from there.
+	 *
+	 * @param executor The executor to deliver the events on, or null to deliver
+	 *                 them on the thread that flushes the sink
+	 */
+	public KeyframeEventSink(Executor executor) {
+		this.executor = executor;
+		this.listeners = new Consumer<?>[16];
+		this.events = new Object[16];
+	}
+
+	/**
+	 * Adds an event to deliver to a listener on the next flush
+	 */
+	public <E> void add(Consumer<? super E> listener, E event) {
+		append(listener, event);
+	}
+
+	private void append(Consumer<?> listener, Object event) {
+		if (this.size == this.events.length) {
+			this.listeners = Arrays.copyOf(this.listeners, this.size * 2);
+			this.events = Arrays.copyOf(this.events, this.size * 2);
+		}
+
+		this.listeners[this.size] = listener;
+		this.events[this.size] = event;
+		this.size++;
+	}
+
+	/**
+	 * Moves every event of another sink to the end of this one, leaving the other
+	 * sink empty
+	 */
+	public void drainFrom(KeyframeEventSink other) {
+		for (int i = 0; i < other.size; i++) {
+			append(other.listeners[i], other.events[i]);
+		}
+
+		other.clear();
+	}
+
+	/**
+	 * Delivers every collected event, then empties the sink so it can collect the
+	 * next frame's events. Without an executor, the listeners are called before
+	 * this returns.
+	 */
+	public void flush() {
+		if (this.size == 0)
+			return;
+
+		if (this.executor == null) {
+			try {
+				deliver(this.listeners, this.events, this.size);
+			}
+			finally {
+				clear();
+			}
+
+			return;
+		}
+
+		// The buffer is reused straight away, so the executor gets its own copy
+		Consumer<?>[] listeners = Arrays.copyOf(this.listeners, this.size);
+		Object[] events = Arrays.copyOf(this.events, this.size);
+
+		clear();
+		this.executor.execute(() -> deliver(listeners, events, listeners.length));
+	}
+
+	private static void deliver(Consumer<?>[] listeners, Object[] events, int size) {
+		for (int i = 0; i < size; i++) {
+			accept(listeners[i], events[i]);
+		}
+	}
+
+	// Each event was added together with its listener, so it's of the type the
+	// listener accepts
+	@SuppressWarnings("unchecked")
+	private static <E> void accept(Consumer<?> listener, Object event) {
+		((Consumer<E>) listener).accept((E) event);
+	}
+
+	/**
+	 * Drops every collected event without delivering it
+	 */
+	public void clear() {
+		Arrays.fill(this.listeners, 0, this.size, null);
+		Arrays.fill(this.events, 0, this.size, null);
+		this.size = 0;
+	}
+
+	/**
+	 * Gets the number of events waiting to be delivered
+	 */
+	public int size() {
+		return this.size;
+	}
+}
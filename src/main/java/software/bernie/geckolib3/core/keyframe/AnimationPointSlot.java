@@ -0,0 +1,71 @@
+/*
+ * Copyright (c) 2020.
+ * Author: Bernie G. (Gecko)
+ */
+
+package software.bernie.geckolib3.core.keyframe;
+
+/**
+ * An animation point slot holds the values of the {@link AnimationPoint} for
+ * one axis of a bone for the current frame. Slots are reused every frame
+ * instead of creating and queueing a new AnimationPoint.
+ */
+public class AnimationPointSlot {
+	/**
+	 * The current tick in the animation to lerp from
+	 */
+	public double currentTick;
+	/**
+	 * The tick that the current animation should end at
+	 */
+	public double animationEndTick;
+	/**
+	 * The Animation start value.
+	 */
+	public double animationStartValue;
+	/**
+	 * The Animation end value.
+	 */
+	public double animationEndValue;
+
+	/**
+	 * The current keyframe, used for its easing. Null during transitions.
+	 */
+	public KeyFrame<?> keyframe;
+
+	private boolean isSet = false;
+
+	/**
+	 * Fills this slot for the current frame.
+	 */
+	public void set(KeyFrame<?> keyframe, double tick, double animationEndTick, double animationStartValue,
+			double animationEndValue) {
+		this.keyframe = keyframe;
+		this.currentTick = tick;
+		this.animationEndTick = animationEndTick;
+		this.animationStartValue = animationStartValue;
+		this.animationEndValue = animationEndValue;
+		this.isSet = true;
+	}
+
+	/**
+	 * Whether this slot has been filled since it was last cleared.
+	 */
+	public boolean isSet() {
+		return this.isSet;
+	}
+
+	/**
+	 * Marks this slot as empty. The values are left in place.
+	 */
+	public void clear() {
+		this.isSet = false;
+		this.keyframe = null;
+	}
+
+	@Override
+	public String toString() {
+		return "Tick: " + currentTick + " | End Tick: " + animationEndTick + " | Start Value: " + animationStartValue
+				+ " | End Value: " + animationEndValue;
+	}
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020.
+ * Author: Bernie G. (Gecko)
+ */
+
+package software.bernie.geckolib3.core.keyframe;
+
+import com.eliotlash.mclib.math.IValue;
+
+import software.bernie.geckolib3.core.easing.EasingType;
+import software.bernie.geckolib3.core.util.Axis;
+import software.bernie.geckolib3.core.util.MathUtil;
+
+/**
+ * A baked bone animation stores the rotation, position and scale of a bone
+ * sampled at a fixed rate, so it can be played back with a single lerp between
+ * two samples instead of evaluating its keyframes. Only bone animations whose
+ * keyframe values are all constant can be baked.
+ */
+public class BakedBoneAnimation {
+	/**
+	 * The number of values per sample: the X, Y and Z of rotation, position and
+	 * scale
+	 */
+	public static final int STRIDE = 9;
+	public static final int ROTATION = 0;
+	public static final int POSITION = 3;
+	public static final int SCALE = 6;
+
+	private final float[] samples;
+	private final int sampleCount;
+	private final double ticksPerSample;
+	private final boolean hasRotation;
+	private final boolean hasPosition;
+	private final boolean hasScale;
+
+	private BakedBoneAnimation(float[] samples, int sampleCount, double ticksPerSample, boolean hasRotation,
+			boolean hasPosition, boolean hasScale) {
+		this.samples = samples;
+		this.sampleCount = sampleCount;
+		this.ticksPerSample = ticksPerSample;
+		this.hasRotation = hasRotation;
+		this.hasPosition = hasPosition;
+		this.hasScale = hasScale;
+	}
+
+	/**
+	 * Bakes a bone animation.
+	 *
+	 * @param boneAnimation The bone animation to bake
+	 * @param sampleRate    How many samples to take per second of animation
+	 * @return the baked bone animation, or null if the bone animation can't be
+	 *         baked because some of its values depend on Molang variables
+	 */
+	public static BakedBoneAnimation bake(BoneAnimation boneAnimation, double sampleRate) {
+		VectorKeyFrameList<KeyFrame<IValue>> rotationKeyFrames = boneAnimation.rotationKeyFrames;
+		VectorKeyFrameList<KeyFrame<IValue>> positionKeyFrames = boneAnimation.positionKeyFrames;
+		VectorKeyFrameList<KeyFrame<IValue>> scaleKeyFrames = boneAnimation.scaleKeyFrames;
+
+		if (!canBake(rotationKeyFrames) || !canBake(positionKeyFrames) || !canBake(scaleKeyFrames))
+			return null;
+
+		double length = Math.max(rotationKeyFrames.getLastKeyframeTime(),
+				Math.max(positionKeyFrames.getLastKeyframeTime(), scaleKeyFrames.getLastKeyframeTime()));
+		double ticksPerSample = 20 / sampleRate;
+		int sampleCount = (int)Math.ceil(length / ticksPerSample) + 1;
+		float[] samples = new float[sampleCount * STRIDE];
+
+		for (int i = 0; i < sampleCount; i++) {
+			double tick = Math.min(i * ticksPerSample, length);
+			int offset = i * STRIDE;
+
+			sampleTrack(samples, offset + ROTATION, rotationKeyFrames, tick, true);
+			sampleTrack(samples, offset + POSITION, positionKeyFrames, tick, false);
+			sampleTrack(samples, offset + SCALE, scaleKeyFrames, tick, false);
+		}
+
+		return new BakedBoneAnimation(samples, sampleCount, ticksPerSample, !rotationKeyFrames.xKeyFrames.isEmpty(),
+				!positionKeyFrames.xKeyFrames.isEmpty(), !scaleKeyFrames.xKeyFrames.isEmpty());
+	}
+
+	// A track can be baked if it's either empty or has keyframes on every axis, all
+	// of which are constant
+	private static boolean canBake(VectorKeyFrameList<KeyFrame<IValue>> track) {
+		if (track.xKeyFrames.isEmpty())
+			return true;
+
+		for (Axis axis : Axis.values()) {
+			if (track.getKeyFrames(axis).isEmpty())
+				return false;
+
+			for (KeyFrame<IValue> frame : track.getKeyFrames(axis)) {
+				if (!BoneAnimation.isConstantValue(frame.getStartValue())
+						|| !BoneAnimation.isConstantValue(frame.getEndValue()))
+					return false;
+			}
+		}
+
+		return true;
+	}
+
+	private static void sampleTrack(float[] samples, int offset, VectorKeyFrameList<KeyFrame<IValue>> track,
+			double tick, boolean isRotation) {
+		if (track.xKeyFrames.isEmpty())
+			return;
+
+		for (Axis axis : Axis.values()) {
+			double[] startTicks = track.getStartTicks(axis);
+			int index = VectorKeyFrameList.findKeyFrameIndex(startTicks, tick);
+			KeyFrame<IValue> frame = track.getKeyFrames(axis).get(index);
+			AnimationPoint point = new AnimationPoint(frame, VectorKeyFrameList.getLocalTick(startTicks, index, tick),
+					frame.getLength(), BoneAnimation.getKeyFrameValue(frame.getStartValue(), axis, isRotation),
+					BoneAnimation.getKeyFrameValue(frame.getEndValue(), axis, isRotation));
+
+			samples[offset + axis.ordinal()] = MathUtil.lerpValues(point, EasingType.NONE, null);
+		}
+	}
+
+	/**
+	 * Gets a value at the given tick, lerping between the two closest samples.
+	 *
+	 * @param channel The channel ({@link #ROTATION}, {@link #POSITION} or
+	 *                {@link #SCALE}) plus the axis ordinal
+	 * @param tick    The tick in the animation
+	 */
+	public float getValue(int channel, double tick) {
+		double position = Math.max(tick, 0) / this.ticksPerSample;
+		int index = (int)position;
+
+		if (index >= this.sampleCount - 1)
+			return this.samples[(this.sampleCount - 1) * STRIDE + channel];
+
+		float from = this.samples[index * STRIDE + channel];
+		float to = this.samples[(index + 1) * STRIDE + channel];
+
+		return MathUtil.lerpValues(position - index, from, to);
+	}
+
+	public boolean hasRotation() {
+		return this.hasRotation;
+	}
+
+	public boolean hasPosition() {
+		return this.hasPosition;
+	}
+
+	public boolean hasScale() {
+		return this.hasScale;
+	}
+}
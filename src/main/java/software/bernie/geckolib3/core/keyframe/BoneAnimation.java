@@ -7,14 +7,64 @@ package software.bernie.geckolib3.core.keyframe;
 
 import com.eliotlash.mclib.math.IValue;
 
+import software.bernie.geckolib3.core.ConstantValue;
+import software.bernie.geckolib3.core.molang.expressions.MolangExpression;
+import software.bernie.geckolib3.core.util.Axis;
+
 public class BoneAnimation {
 	public final String boneName;
 	
 	public VectorKeyFrameList<KeyFrame<IValue>> rotationKeyFrames;
 	public VectorKeyFrameList<KeyFrame<IValue>> positionKeyFrames;
 	public VectorKeyFrameList<KeyFrame<IValue>> scaleKeyFrames;
+
+	/**
+	 * The baked samples of this bone animation, or null if it hasn't been baked.
+	 * See {@link software.bernie.geckolib3.core.builder.Animation#bake(double)}
+	 */
+	public BakedBoneAnimation baked;
 	
 	public BoneAnimation(String boneName) {
 		this.boneName = boneName;
 	}
+
+	/**
+	 * Replaces the constant Molang values of every track with pre-converted
+	 * {@link ConstantValue}s.
+	 *
+	 * @return whether every value of this bone animation is constant
+	 */
+	public boolean normalize() {
+		boolean rotationConstant = this.rotationKeyFrames.normalize(true);
+		boolean positionConstant = this.positionKeyFrames.normalize(false);
+		boolean scaleConstant = this.scaleKeyFrames.normalize(false);
+
+		return rotationConstant && positionConstant && scaleConstant;
+	}
+
+	/**
+	 * Evaluates a keyframe value. Rotations are converted from degrees unless they
+	 * are a {@link ConstantValue}, which are stored already converted.
+	 */
+	public static double getKeyFrameValue(IValue value, Axis axis, boolean isRotation) {
+		double result = value.get();
+
+		if (isRotation && !(value instanceof ConstantValue)) {
+			result = Math.toRadians(result);
+
+			if (axis == Axis.X || axis == Axis.Y)
+				result *= -1;
+		}
+
+		return result;
+	}
+
+	/**
+	 * Whether a keyframe value is a constant, and doesn't depend on any Molang
+	 * variables
+	 */
+	public static boolean isConstantValue(IValue value) {
+		return value instanceof ConstantValue
+				|| value instanceof MolangExpression expression && MolangExpression.isExpressionConstant(expression);
+	}
 }
@@ -7,14 +7,112 @@ package software.bernie.geckolib3.core.keyframe;
 
 import software.bernie.geckolib3.core.processor.IBone;
 
-public record BoneAnimationQueue(IBone bone, AnimationPointQueue rotationXQueue, AnimationPointQueue rotationYQueue,
-		AnimationPointQueue rotationZQueue, AnimationPointQueue positionXQueue, AnimationPointQueue positionYQueue,
-		AnimationPointQueue positionZQueue, AnimationPointQueue scaleXQueue, AnimationPointQueue scaleYQueue,
-		AnimationPointQueue scaleZQueue) {
+/**
+ * Holds the animation point of every axis of a bone's rotation, position and
+ * scale for the current frame. The controller fills the slots and the
+ * animation processor consumes them. Each controller keeps one per bone for
+ * as long as the model's bones don't change.
+ */
+public class BoneAnimationQueue {
+	private final IBone bone;
+	private final AnimationPointSlot rotationXPoint = new AnimationPointSlot();
+	private final AnimationPointSlot rotationYPoint = new AnimationPointSlot();
+	private final AnimationPointSlot rotationZPoint = new AnimationPointSlot();
+	private final AnimationPointSlot positionXPoint = new AnimationPointSlot();
+	private final AnimationPointSlot positionYPoint = new AnimationPointSlot();
+	private final AnimationPointSlot positionZPoint = new AnimationPointSlot();
+	private final AnimationPointSlot scaleXPoint = new AnimationPointSlot();
+	private final AnimationPointSlot scaleYPoint = new AnimationPointSlot();
+	private final AnimationPointSlot scaleZPoint = new AnimationPointSlot();
+	private final KeyFrameCursor[] keyFrameCursors = new KeyFrameCursor[9];
 
 	public BoneAnimationQueue(IBone bone) {
-		this(bone, new AnimationPointQueue(), new AnimationPointQueue(), new AnimationPointQueue(),
-				new AnimationPointQueue(), new AnimationPointQueue(), new AnimationPointQueue(),
-				new AnimationPointQueue(), new AnimationPointQueue(), new AnimationPointQueue());
+		this.bone = bone;
+
+		for (int i = 0; i < this.keyFrameCursors.length; i++) {
+			this.keyFrameCursors[i] = new KeyFrameCursor();
+		}
+	}
+
+	public IBone bone() {
+		return this.bone;
+	}
+
+	public AnimationPointSlot rotationXPoint() {
+		return this.rotationXPoint;
+	}
+
+	public AnimationPointSlot rotationYPoint() {
+		return this.rotationYPoint;
+	}
+
+	public AnimationPointSlot rotationZPoint() {
+		return this.rotationZPoint;
+	}
+
+	public AnimationPointSlot positionXPoint() {
+		return this.positionXPoint;
+	}
+
+	public AnimationPointSlot positionYPoint() {
+		return this.positionYPoint;
+	}
+
+	public AnimationPointSlot positionZPoint() {
+		return this.positionZPoint;
+	}
+
+	public AnimationPointSlot scaleXPoint() {
+		return this.scaleXPoint;
+	}
+
+	public AnimationPointSlot scaleYPoint() {
+		return this.scaleYPoint;
+	}
+
+	public AnimationPointSlot scaleZPoint() {
+		return this.scaleZPoint;
+	}
+
+	/**
+	 * Gets the keyframe cursors of this bone, one for each axis of its rotation,
+	 * position and scale tracks (in that order).
+	 */
+	public KeyFrameCursor[] keyFrameCursors() {
+		return this.keyFrameCursors;
+	}
+
+	public boolean hasRotation() {
+		return this.rotationXPoint.isSet() && this.rotationYPoint.isSet() && this.rotationZPoint.isSet();
+	}
+
+	public boolean hasPosition() {
+		return this.positionXPoint.isSet() && this.positionYPoint.isSet() && this.positionZPoint.isSet();
+	}
+
+	public boolean hasScale() {
+		return this.scaleXPoint.isSet() && this.scaleYPoint.isSet() && this.scaleZPoint.isSet();
+	}
+
+	/**
+	 * Whether any channel was fully set this frame
+	 */
+	public boolean hasAnyPoint() {
+		return hasRotation() || hasPosition() || hasScale();
+	}
+
+	/**
+	 * Empties every slot, ready for the next frame.
+	 */
+	public void clear() {
+		this.rotationXPoint.clear();
+		this.rotationYPoint.clear();
+		this.rotationZPoint.clear();
+		this.positionXPoint.clear();
+		this.positionYPoint.clear();
+		this.positionZPoint.clear();
+		this.scaleXPoint.clear();
+		this.scaleYPoint.clear();
+		this.scaleZPoint.clear();
 	}
 }
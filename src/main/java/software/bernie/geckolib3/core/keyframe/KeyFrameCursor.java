@@ -0,0 +1,64 @@
+/*
+ * Copyright (c) 2020.
+ * Author: Bernie G. (Gecko)
+ */
+
+package software.bernie.geckolib3.core.keyframe;
+
+/**
+ * A keyframe cursor remembers which keyframe was last played on one axis of a
+ * track. As animations almost always play forward, the next lookup only needs
+ * to step from there instead of searching the whole track again.
+ */
+public class KeyFrameCursor {
+	/**
+	 * How many keyframes the cursor will step over before falling back to a search
+	 */
+	private static final int MAX_STEPS = 8;
+
+	private double[] startTicks;
+	private int index;
+
+	/**
+	 * Moves the cursor to the keyframe playing at the given tick. Falls back to a
+	 * full search if the track changed, or if the tick moved backwards (loop or
+	 * seek) or too far forwards.
+	 *
+	 * @param startTicks The cumulative start ticks of the track, from
+	 *                   {@link VectorKeyFrameList#getStartTicks}
+	 * @param tick       The tick in the animation
+	 * @return the keyframe index
+	 */
+	public int seek(double[] startTicks, double tick) {
+		if (this.startTicks != startTicks || startTicks.length < 2 || tick < startTicks[this.index])
+			return search(startTicks, tick);
+
+		int last = startTicks.length - 2;
+
+		for (int steps = 0; this.index < last && startTicks[this.index + 1] <= tick; steps++) {
+			if (steps == MAX_STEPS)
+				return search(startTicks, tick);
+
+			this.index++;
+		}
+
+		return this.index;
+	}
+
+	private int search(double[] startTicks, double tick) {
+		int found = VectorKeyFrameList.findKeyFrameIndex(startTicks, tick);
+
+		// Forget the position, so the next seek searches again
+		if (found < 0) {
+			this.startTicks = null;
+			this.index = 0;
+
+			return found;
+		}
+
+		this.startTicks = startTicks;
+		this.index = found;
+
+		return found;
+	}
+}
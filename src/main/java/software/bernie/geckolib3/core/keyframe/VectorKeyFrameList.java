@@ -7,7 +7,11 @@ package software.bernie.geckolib3.core.keyframe;
 
 import java.util.List;
 
+import com.eliotlash.mclib.math.IValue;
+
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import software.bernie.geckolib3.core.ConstantValue;
+import software.bernie.geckolib3.core.util.Axis;
 
 /**
  * A vector key frame list is a handy class used to store 3 lists of keyframes:
@@ -29,6 +33,17 @@ public class VectorKeyFrameList<T extends KeyFrame> {
 	 */
 	public List<T> zKeyFrames;
 
+	/**
+	 * The cumulative start tick of every keyframe on each axis. Each array has one
+	 * more entry than its keyframe list, the last entry being the total length of
+	 * the track.
+	 */
+	private double[] xStartTicks;
+	private double[] yStartTicks;
+	private double[] zStartTicks;
+
+	private boolean isConstant = false;
+
 	/**
 	 * Instantiates a new vector key frame list from 3 lists of keyframes
 	 *
@@ -40,6 +55,8 @@ public class VectorKeyFrameList<T extends KeyFrame> {
 		xKeyFrames = XKeyFrames;
 		yKeyFrames = YKeyFrames;
 		zKeyFrames = ZKeyFrames;
+
+		buildTimeIndex();
 	}
 
 	/**
@@ -51,22 +68,155 @@ public class VectorKeyFrameList<T extends KeyFrame> {
 		zKeyFrames = new ObjectArrayList<>();
 	}
 
-	public double getLastKeyframeTime() {
-		double xTime = 0;
-		for (T frame : xKeyFrames) {
-			xTime += frame.getLength();
+	/**
+	 * (Re)builds the cumulative start tick index of each axis.<br>
+	 * This is done automatically when constructed with keyframes, but must be
+	 * called again if the lengths of existing keyframes are changed afterwards.
+	 */
+	public void buildTimeIndex() {
+		this.xStartTicks = computeStartTicks(this.xKeyFrames);
+		this.yStartTicks = computeStartTicks(this.yKeyFrames);
+		this.zStartTicks = computeStartTicks(this.zKeyFrames);
+	}
+
+	/**
+	 * Gets the keyframes of the given axis.
+	 */
+	public List<T> getKeyFrames(Axis axis) {
+		return switch (axis) {
+			case X -> this.xKeyFrames;
+			case Y -> this.yKeyFrames;
+			case Z -> this.zKeyFrames;
+		};
+	}
+
+	/**
+	 * Gets the cumulative start ticks of the keyframes of the given axis. The
+	 * returned array must not be modified.
+	 */
+	public double[] getStartTicks(Axis axis) {
+		double[] startTicks = switch (axis) {
+			case X -> this.xStartTicks;
+			case Y -> this.yStartTicks;
+			case Z -> this.zStartTicks;
+		};
+
+		// Keyframes were added after construction, rebuild the index
+		if (startTicks == null || startTicks.length != getKeyFrames(axis).size() + 1) {
+			buildTimeIndex();
+
+			return getStartTicks(axis);
 		}
 
-		double yTime = 0;
-		for (T frame : yKeyFrames) {
-			yTime += frame.getLength();
+		return startTicks;
+	}
+
+	/**
+	 * Replaces every keyframe value that is a constant Molang expression with a
+	 * {@link ConstantValue}, converting rotations to radians ahead of time, and
+	 * flags the track as constant if all of its values are.
+	 *
+	 * @param isRotation Whether this is a rotation track
+	 * @return whether every value of the track is constant
+	 */
+	public boolean normalize(boolean isRotation) {
+		boolean isConstant = true;
+
+		for (Axis axis : Axis.values()) {
+			for (T frame : getKeyFrames(axis)) {
+				// Bone animations, the only tracks that get normalized, hold IValue keyframes
+				@SuppressWarnings("unchecked")
+				KeyFrame<IValue> valueFrame = frame;
+
+				isConstant &= normalizeKeyFrame(valueFrame, axis, isRotation);
+			}
 		}
 
-		double zTime = 0;
-		for (T frame : zKeyFrames) {
-			zTime += frame.getLength();
+		this.isConstant = isConstant;
+
+		return isConstant;
+	}
+
+	/**
+	 * Whether every value of this track was found to be constant by
+	 * {@link #normalize(boolean)}. Constant tracks don't need any Molang variables
+	 * to be set to be evaluated.
+	 */
+	public boolean isConstant() {
+		return this.isConstant;
+	}
+
+	private static boolean normalizeKeyFrame(KeyFrame<IValue> frame, Axis axis, boolean isRotation) {
+		if (BoneAnimation.isConstantValue(frame.getStartValue()) && !(frame.getStartValue() instanceof ConstantValue))
+			frame.setStartValue(
+					ConstantValue.fromDouble(BoneAnimation.getKeyFrameValue(frame.getStartValue(), axis, isRotation)));
+
+		if (BoneAnimation.isConstantValue(frame.getEndValue()) && !(frame.getEndValue() instanceof ConstantValue))
+			frame.setEndValue(
+					ConstantValue.fromDouble(BoneAnimation.getKeyFrameValue(frame.getEndValue(), axis, isRotation)));
+
+		return frame.getStartValue() instanceof ConstantValue && frame.getEndValue() instanceof ConstantValue;
+	}
+
+	public double getLastKeyframeTime() {
+		double[] xTicks = getStartTicks(Axis.X);
+		double[] yTicks = getStartTicks(Axis.Y);
+		double[] zTicks = getStartTicks(Axis.Z);
+
+		return Math.max(xTicks[xTicks.length - 1], Math.max(yTicks[yTicks.length - 1], zTicks[zTicks.length - 1]));
+	}
+
+	/**
+	 * Binary searches for the index of the keyframe that is playing at the given
+	 * tick. Ticks past the end of the track return the last keyframe.
+	 *
+	 * @param startTicks The cumulative start ticks of the track, from
+	 *                   {@link #getStartTicks(Axis)}
+	 * @param tick       The tick in the animation
+	 * @return the keyframe index, or -1 if the track is empty
+	 */
+	public static int findKeyFrameIndex(double[] startTicks, double tick) {
+		int low = 0;
+		int high = startTicks.length - 2;
+
+		// Find the first keyframe that ends after the given tick
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+
+			if (startTicks[mid + 1] > tick) {
+				high = mid - 1;
+			}
+			else {
+				low = mid + 1;
+			}
+		}
+
+		return Math.min(low, startTicks.length - 2);
+	}
+
+	/**
+	 * Gets how far into the given keyframe the tick is. Past the end of the track,
+	 * the tick is returned unchanged so the last keyframe finishes on its end
+	 * value.
+	 */
+	public static double getLocalTick(double[] startTicks, int index, double tick) {
+		if (tick >= startTicks[startTicks.length - 1])
+			return tick;
+
+		return tick - startTicks[index];
+	}
+
+	private static <F extends KeyFrame<?>> double[] computeStartTicks(List<F> frames) {
+		double[] startTicks = new double[frames.size() + 1];
+		double totalTimeTracker = 0;
+
+		for (int i = 0; i < frames.size(); i++) {
+			startTicks[i] = totalTimeTracker;
+			totalTimeTracker += frames.get(i).getLength();
 		}
 
-		return Math.max(xTime, Math.max(yTime, zTime));
+		startTicks[frames.size()] = totalTimeTracker;
+
+		return startTicks;
 	}
 }
@@ -6,17 +6,31 @@
 package software.bernie.geckolib3.core.manager;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 import org.apache.commons.lang3.tuple.Pair;
 import software.bernie.geckolib3.core.controller.AnimationController;
+import software.bernie.geckolib3.core.molang.MolangContext;
+import software.bernie.geckolib3.core.processor.AnimationProcessor;
 import software.bernie.geckolib3.core.processor.IBone;
+import software.bernie.geckolib3.core.processor.Pose;
 import software.bernie.geckolib3.core.snapshot.BoneSnapshot;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 public class AnimationData {
 	private Map<String, Pair<IBone, BoneSnapshot>> boneSnapshotCollection;
+	// Bumped whenever the collection is replaced, so each model state rebuilds its
+	// indexed snapshots
+	private int boneSnapshotCollectionRevision;
 	private Map<String, AnimationController> animationControllers = new Object2ObjectOpenHashMap<>();
+	private final MolangContext molangContext = new MolangContext();
+	private AnimationLodPolicy lodPolicy;
+	private double lodScore = Double.NaN;
+	// The state kept for each model animating this. There's usually only one, so a
+	// list is the fastest to search
+	private final List<ModelState> modelStates = new ObjectArrayList<>(1);
 	public double tick;
 	public boolean isFirstTick = true;
 	private double resetTickLength = 1;
@@ -49,10 +63,104 @@ public class AnimationData {
 
 	public void setBoneSnapshotCollection(HashMap<String, Pair<IBone, BoneSnapshot>> boneSnapshotCollection) {
 		this.boneSnapshotCollection = boneSnapshotCollection;
+		this.boneSnapshotCollectionRevision++;
 	}
 
 	public void clearSnapshotCache() {
 		this.boneSnapshotCollection = new HashMap<>();
+		this.boneSnapshotCollectionRevision++;
+	}
+
+	/**
+	 * Gets the bone snapshots of this animatable indexed the same as the given
+	 * processor's model renderer list, see {@link ModelState#getBoneSnapshots()}
+	 */
+	public BoneSnapshot[] getBoneSnapshots(AnimationProcessor<?> processor) {
+		return getModelState(processor).getBoneSnapshots();
+	}
+
+	int getBoneSnapshotCollectionRevision() {
+		return this.boneSnapshotCollectionRevision;
+	}
+
+	/**
+	 * Gets the state this animatable keeps for the given processor's model,
+	 * creating it the first time the model animates this
+	 */
+	public ModelState getModelState(AnimationProcessor<?> processor) {
+		for (int i = 0; i < this.modelStates.size(); i++) {
+			ModelState state = this.modelStates.get(i);
+
+			if (state.getProcessor() == processor)
+				return state;
+		}
+
+		// The states only hold their processors weakly, so the ones of discarded
+		// processors are dropped here
+		this.modelStates.removeIf(state -> state.getProcessor() == null);
+
+		ModelState state = new ModelState(this, processor);
+
+		this.modelStates.add(state);
+
+		return state;
+	}
+
+	/**
+	 * Gets the pose the given processor animates this animatable into, see
+	 * {@link ModelState#getPose()}
+	 */
+	public Pose getPose(AnimationProcessor<?> processor) {
+		return getModelState(processor).getPose();
+	}
+
+	/**
+	 * Records that a processor is animating this on the given frame. Each
+	 * processor is tracked separately, so several models can animate the same
+	 * animatable on one frame.
+	 *
+	 * @param processor The processor animating this
+	 * @param frame     The processor's current frame
+	 * @return false if the processor already animated this on that frame
+	 */
+	public boolean markAnimated(AnimationProcessor<?> processor, long frame) {
+		return getModelState(processor).markAnimated(frame);
+	}
+
+	/**
+	 * Gets the Molang variable values of this animatable. The context is bound
+	 * while the animatable is animated, so queries and assignments made during
+	 * evaluation only affect this animatable.
+	 */
+	public MolangContext getMolangContext() {
+		return this.molangContext;
+	}
+
+	/**
+	 * Sets how often this animatable's animations are evaluated, or null to evaluate
+	 * them every frame
+	 */
+	public void setLodPolicy(AnimationLodPolicy lodPolicy) {
+		this.lodPolicy = lodPolicy;
+	}
+
+	public AnimationLodPolicy getLodPolicy() {
+		return this.lodPolicy;
+	}
+
+	/**
+	 * Sets the score passed to the level of detail policy. Until this is set, the
+	 * value of query.distance_from_camera is used.
+	 */
+	public void setLodScore(double lodScore) {
+		this.lodScore = lodScore;
+	}
+
+	/**
+	 * Gets the score passed to the level of detail policy, or NaN if none was set
+	 */
+	public double getLodScore() {
+		return this.lodScore;
 	}
 
 	public double getResetSpeed() {
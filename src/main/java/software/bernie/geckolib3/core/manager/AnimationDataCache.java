@@ -0,0 +1,205 @@
+package software.bernie.geckolib3.core.manager;
+
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.ints.Int2ObjectLinkedOpenHashMap;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntFunction;
+
+/**
+ * Thread-safe cache of {@link AnimationData} by unique id, used by
+ * {@link SingletonAnimationFactory}. Ids are spread over several independently
+ * locked stripes. Each stripe evicts its least recently used data once it holds
+ * more than its share of the maximum size, and any data that hasn't been used
+ * for longer than the idle timeout.
+ */
+public class AnimationDataCache {
+	public static final int DEFAULT_MAXIMUM_SIZE = 4096;
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = TimeUnit.MINUTES.toMillis(10);
+	private static final int STRIPE_COUNT = 16;
+
+	private final Stripe[] stripes;
+	private final int maximumStripeSize;
+	private final long idleTimeoutNanos;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	public AnimationDataCache() {
+		this(DEFAULT_MAXIMUM_SIZE, DEFAULT_IDLE_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * @param maximumSize       Roughly how much data to keep at most, split
+	 *                          evenly between the stripes. Use
+	 *                          {@link Integer#MAX_VALUE} to never evict by size
+	 * @param idleTimeoutMillis How long data can go unused before it is evicted,
+	 *                          or 0 to never evict idle data
+	 */
+	public AnimationDataCache(int maximumSize, long idleTimeoutMillis) {
+		if (maximumSize < 1)
+			throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+
+		if (idleTimeoutMillis < 0)
+			throw new IllegalArgumentException("Idle timeout cannot be negative: " + idleTimeoutMillis);
+
+		this.stripes = new Stripe[STRIPE_COUNT];
+		this.maximumStripeSize = (int) Math.min(Integer.MAX_VALUE,
+				((long) maximumSize + STRIPE_COUNT - 1) / STRIPE_COUNT);
+		this.idleTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(idleTimeoutMillis);
+
+		for (int i = 0; i < STRIPE_COUNT; i++) {
+			this.stripes[i] = new Stripe();
+		}
+	}
+
+	/**
+	 * Gets the data for a unique id, creating it with the given function if it
+	 * isn't cached or was evicted. The function is called without holding any
+	 * lock, so if several threads miss the same id at once, the data of the first
+	 * one to finish is kept and returned to all of them.
+	 */
+	public AnimationData getOrCreate(int uniqueID, IntFunction<AnimationData> creator) {
+		Stripe stripe = getStripe(uniqueID);
+		long now = System.nanoTime();
+
+		synchronized (stripe) {
+			evictIdle(stripe, now);
+
+			AnimationData data = getAndTouch(stripe, uniqueID, now);
+
+			if (data != null) {
+				this.hits.increment();
+
+				return data;
+			}
+		}
+
+		this.misses.increment();
+
+		// Creating data registers its controllers, which other ids of the stripe
+		// shouldn't have to wait for
+		AnimationData created = creator.apply(uniqueID);
+
+		synchronized (stripe) {
+			AnimationData data = getAndTouch(stripe, uniqueID, now);
+
+			if (data != null)
+				return data;
+
+			stripe.entries.putAndMoveToLast(uniqueID, new Entry(created, now));
+
+			while (stripe.entries.size() > this.maximumStripeSize) {
+				stripe.entries.removeFirst();
+				this.evictions.increment();
+			}
+
+			return created;
+		}
+	}
+
+	// Must be called while holding the stripe's lock
+	private static AnimationData getAndTouch(Stripe stripe, int uniqueID, long now) {
+		Entry entry = stripe.entries.getAndMoveToLast(uniqueID);
+
+		if (entry == null)
+			return null;
+
+		entry.lastAccess = now;
+
+		return entry.data;
+	}
+
+	/**
+	 * Gets the data for a unique id without creating it, or null if it isn't cached
+	 */
+	public AnimationData getIfPresent(int uniqueID) {
+		Stripe stripe = getStripe(uniqueID);
+
+		synchronized (stripe) {
+			Entry entry = stripe.entries.get(uniqueID);
+
+			return entry == null ? null : entry.data;
+		}
+	}
+
+	public void invalidate(int uniqueID) {
+		Stripe stripe = getStripe(uniqueID);
+
+		synchronized (stripe) {
+			stripe.entries.remove(uniqueID);
+		}
+	}
+
+	public void invalidateAll() {
+		for (Stripe stripe : this.stripes) {
+			synchronized (stripe) {
+				stripe.entries.clear();
+			}
+		}
+	}
+
+	/**
+	 * Evicts idle data from every stripe. Stripes are otherwise only cleaned up
+	 * when they are used, so call this now and then if ids stop being used.
+	 */
+	public void cleanUp() {
+		long now = System.nanoTime();
+
+		for (Stripe stripe : this.stripes) {
+			synchronized (stripe) {
+				evictIdle(stripe, now);
+			}
+		}
+	}
+
+	public int size() {
+		int size = 0;
+
+		for (Stripe stripe : this.stripes) {
+			synchronized (stripe) {
+				size += stripe.entries.size();
+			}
+		}
+
+		return size;
+	}
+
+	public AnimationDataCacheStats getStats() {
+		return new AnimationDataCacheStats(this.hits.sum(), this.misses.sum(), this.evictions.sum(), size());
+	}
+
+	private Stripe getStripe(int uniqueID) {
+		return this.stripes[HashCommon.mix(uniqueID) & (STRIPE_COUNT - 1)];
+	}
+
+	// Entries are kept in access order, so idle ones are always at the front
+	private void evictIdle(Stripe stripe, long now) {
+		if (this.idleTimeoutNanos == 0)
+			return;
+
+		Int2ObjectLinkedOpenHashMap<Entry> entries = stripe.entries;
+
+		while (!entries.isEmpty() && now - entries.get(entries.firstIntKey()).lastAccess > this.idleTimeoutNanos) {
+			entries.removeFirst();
+			this.evictions.increment();
+		}
+	}
+
+	// Holds a stripe's map and is locked for it, as arrays of a generic type can't
+	// be created
+	private static class Stripe {
+		private final Int2ObjectLinkedOpenHashMap<Entry> entries = new Int2ObjectLinkedOpenHashMap<>();
+	}
+
+	private static class Entry {
+		private final AnimationData data;
+		private long lastAccess;
+
+		private Entry(AnimationData data, long lastAccess) {
+			this.data = data;
+			this.lastAccess = lastAccess;
+		}
+	}
+}
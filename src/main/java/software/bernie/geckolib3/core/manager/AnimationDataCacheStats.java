@@ -0,0 +1,21 @@
+package software.bernie.geckolib3.core.manager;
+
+/**
+ * Counters of an {@link AnimationDataCache}.
+ *
+ * @param hits      The amount of lookups that found cached data
+ * @param misses    The amount of lookups that had to create new data
+ * @param evictions The amount of data evicted for being idle or over the
+ *                  maximum size
+ * @param size      The amount of data currently cached
+ */
+public record AnimationDataCacheStats(long hits, long misses, long evictions, int size) {
+	/**
+	 * Gets the fraction of lookups that found cached data, or 1 if there weren't any
+	 */
+	public double hitRate() {
+		long lookups = this.hits + this.misses;
+
+		return lookups == 0 ? 1 : this.hits / (double) lookups;
+	}
+}
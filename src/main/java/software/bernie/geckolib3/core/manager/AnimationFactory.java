@@ -1,8 +1,9 @@
 package software.bernie.geckolib3.core.manager;
 
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import software.bernie.geckolib3.core.IAnimatable;
 
+import java.util.function.IntFunction;
+
 /**
  * TODO 1.20+:
  * <ul>
@@ -13,7 +14,8 @@ import software.bernie.geckolib3.core.IAnimatable;
  */
 public class AnimationFactory {
 	protected final IAnimatable animatable;
-	private final Int2ObjectOpenHashMap<AnimationData> animationDataMap = new Int2ObjectOpenHashMap<>();
+	private volatile AnimationDataCache animationDataMap;
+	private final IntFunction<AnimationData> animationDataCreator = uniqueID -> createAnimationData();
 
 	/**
 	 * Deprecated, use {@code GeckolibUtil#createFactory(IAnimatable)}
@@ -36,14 +38,30 @@ public class AnimationFactory {
 	 * @return the animatable manager
 	 */
 	public AnimationData getOrCreateAnimationData(int uniqueID) {
-		if (!this.animationDataMap.containsKey(uniqueID)) {
-			AnimationData data = new AnimationData();
+		AnimationDataCache animationDataMap = this.animationDataMap;
+
+		// Only created when this deprecated path is used, subclasses don't need it
+		if (animationDataMap == null) {
+			synchronized (this) {
+				animationDataMap = this.animationDataMap;
 
-			this.animatable.registerControllers(data);
-			this.animationDataMap.put(uniqueID, data);
+				if (animationDataMap == null)
+					this.animationDataMap = animationDataMap = new AnimationDataCache();
+			}
 		}
 
-		return animationDataMap.get(uniqueID);
+		return animationDataMap.getOrCreate(uniqueID, this.animationDataCreator);
+	}
+
+	/**
+	 * Creates a new animation data and registers the animatable's controllers to it
+	 */
+	protected AnimationData createAnimationData() {
+		AnimationData data = new AnimationData();
+
+		this.animatable.registerControllers(data);
+
+		return data;
 	}
 
 	/**
@@ -0,0 +1,62 @@
+package software.bernie.geckolib3.core.manager;
+
+/**
+ * Decides how often an animatable's animations are evaluated, from its distance
+ * to the camera or any other score the caller sets with
+ * {@link AnimationData#setLodScore(double)}. Frames in between reuse the last
+ * evaluated pose, or interpolate between the last two. Controllers are always
+ * evaluated at the current tick, so animations don't drift and passed keyframe
+ * events still fire once an animatable is evaluated again.
+ */
+@FunctionalInterface
+public interface AnimationLodPolicy {
+	/**
+	 * Update interval of an animatable that should keep its current pose until its
+	 * score changes
+	 */
+	int FROZEN = 0;
+
+	/**
+	 * Gets how many frames apart the animatable should be evaluated.
+	 *
+	 * @param score The animatable's score
+	 * @return 1 to evaluate every frame, 2 for every second frame and so on, or
+	 *         {@link AnimationLodPolicy#FROZEN}
+	 */
+	int getUpdateInterval(double score);
+
+	/**
+	 * Whether frames that aren't evaluated should interpolate between the last two
+	 * evaluated poses, instead of repeating the last one. This delays the pose by
+	 * one update interval.
+	 */
+	default boolean interpolate() {
+		return false;
+	}
+
+	/**
+	 * Creates a policy that treats the score as a distance, evaluating every frame
+	 * up to the first distance, every second frame up to the second, every fourth
+	 * frame up to the third and freezing beyond that.
+	 */
+	static AnimationLodPolicy byDistance(double fullRateDistance, double halfRateDistance,
+			double quarterRateDistance, boolean interpolate) {
+		return new AnimationLodPolicy() {
+			@Override
+			public int getUpdateInterval(double distance) {
+				if (distance <= fullRateDistance)
+					return 1;
+
+				if (distance <= halfRateDistance)
+					return 2;
+
+				return distance <= quarterRateDistance ? 4 : FROZEN;
+			}
+
+			@Override
+			public boolean interpolate() {
+				return interpolate;
+			}
+		};
+	}
+}
@@ -14,11 +14,8 @@ public class InstancedAnimationFactory extends AnimationFactory {
 
 	@Override
 	public AnimationData getOrCreateAnimationData(int uniqueID) {
-		if (this.animationData == null) {
-			this.animationData = new AnimationData();
-
-			this.animatable.registerControllers(this.animationData);
-		}
+		if (this.animationData == null)
+			this.animationData = createAnimationData();
 
 		return this.animationData;
 	}
@@ -0,0 +1,282 @@
+package software.bernie.geckolib3.core.manager;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import org.apache.commons.lang3.tuple.Pair;
+import software.bernie.geckolib3.core.processor.AnimationProcessor;
+import software.bernie.geckolib3.core.processor.IBone;
+import software.bernie.geckolib3.core.processor.Pose;
+import software.bernie.geckolib3.core.snapshot.BoneSnapshot;
+
+import java.lang.ref.WeakReference;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The state an animatable keeps for one of the models animating it, see
+ * {@link AnimationData#getModelState}. Several models can animate the same
+ * animatable, so each keeps its own bone snapshots, pose buffers and level of
+ * detail history instead of rebuilding them whenever a different model calls in.
+ */
+public class ModelState {
+	private final AnimationData animationData;
+	// Weak, so the states of discarded processors don't keep them alive
+	private final WeakReference<AnimationProcessor<?>> processorReference;
+	private BoneSnapshot[] boneSnapshots;
+	private int boneSnapshotsRevision;
+	private int boneSnapshotCollectionRevision;
+	private final IntArrayList bonesNotAtRest = new IntArrayList();
+	// Whether each bone is in bonesNotAtRest. The snapshots' flags change as soon as
+	// a controller animates a bone, before it's listed, so they can't tell
+	private boolean[] listedNotAtRest = new boolean[0];
+	private Pose pose;
+	private int poseRevision;
+	private Pose frontPose;
+	private boolean poseAtRest;
+	private long animatedFrame = -1;
+	private int lodFramesSinceUpdate;
+	private Pose lodFromPose;
+	private Pose lodToPose;
+
+	ModelState(AnimationData animationData, AnimationProcessor<?> processor) {
+		this.animationData = animationData;
+		this.processorReference = new WeakReference<>(processor);
+	}
+
+	/**
+	 * Gets the processor this state is for, or null if it has been discarded
+	 */
+	public AnimationProcessor<?> getProcessor() {
+		return this.processorReference.get();
+	}
+
+	/**
+	 * Records that the processor is animating the animatable on the given frame
+	 *
+	 * @return false if it already animated it on that frame
+	 */
+	public boolean markAnimated(long frame) {
+		if (this.animatedFrame == frame)
+			return false;
+
+		this.animatedFrame = frame;
+
+		return true;
+	}
+
+	/**
+	 * Gets the bone snapshots of the animatable indexed the same as the processor's
+	 * model renderer list, adding any that are missing from the animatable's bone
+	 * snapshot collection. Snapshots in the collection are only used by the model
+	 * whose bone they were made for, a bone of the same name in another model gets
+	 * its own. The array is only rebuilt when the processor's bones or the
+	 * collection change.
+	 */
+	public BoneSnapshot[] getBoneSnapshots() {
+		AnimationProcessor<?> processor = getProcessor();
+
+		if (this.boneSnapshots != null && this.boneSnapshotsRevision == processor.getBoneListRevision()
+				&& this.boneSnapshotCollectionRevision == this.animationData.getBoneSnapshotCollectionRevision())
+			return this.boneSnapshots;
+
+		Map<String, Pair<IBone, BoneSnapshot>> boneSnapshotCollection = this.animationData
+				.getBoneSnapshotCollection();
+		List<IBone> modelRendererList = processor.getModelRendererList();
+		BoneSnapshot[] snapshots = new BoneSnapshot[modelRendererList.size()];
+
+		for (int i = 0; i < snapshots.length; i++) {
+			IBone bone = modelRendererList.get(i);
+			Pair<IBone, BoneSnapshot> snapshot = boneSnapshotCollection.get(bone.getName());
+
+			if (snapshot == null) {
+				snapshot = Pair.of(bone, new BoneSnapshot(bone.getInitialSnapshot()));
+
+				boneSnapshotCollection.put(bone.getName(), snapshot);
+			}
+			else if (snapshot.getLeft() != bone) {
+				// Resetting only visits the bones this model animated, so sharing with
+				// another model would leave the bones it animated unreset
+				snapshot = Pair.of(bone, new BoneSnapshot(bone.getInitialSnapshot()));
+			}
+
+			snapshots[i] = snapshot.getRight();
+		}
+
+		// Every bone has to be written to the pose again, as it may have been animated
+		// with other snapshots
+		this.bonesNotAtRest.clear();
+		this.listedNotAtRest = new boolean[snapshots.length];
+
+		for (int i = 0; i < snapshots.length; i++) {
+			markNotAtRest(i);
+		}
+
+		this.boneSnapshots = snapshots;
+		this.boneSnapshotsRevision = processor.getBoneListRevision();
+		this.boneSnapshotCollectionRevision = this.animationData.getBoneSnapshotCollectionRevision();
+		this.poseAtRest = false;
+
+		return snapshots;
+	}
+
+	/**
+	 * Gets the indexes of the bones that have a property that is animated or still
+	 * resetting on this model, in no particular order
+	 */
+	public IntArrayList getBonesNotAtRest() {
+		return this.bonesNotAtRest;
+	}
+
+	/**
+	 * Adds a bone to {@link ModelState#getBonesNotAtRest()}, unless it's already
+	 * there
+	 */
+	public void markNotAtRest(int boneIndex) {
+		if (this.listedNotAtRest[boneIndex])
+			return;
+
+		this.listedNotAtRest[boneIndex] = true;
+
+		this.bonesNotAtRest.add(boneIndex);
+	}
+
+	/**
+	 * Removes the bone at the given position of
+	 * {@link ModelState#getBonesNotAtRest()}, swapping the last one into its place
+	 */
+	public void removeNotAtRest(int position) {
+		IntArrayList bonesNotAtRest = this.bonesNotAtRest;
+		int last = bonesNotAtRest.size() - 1;
+
+		this.listedNotAtRest[bonesNotAtRest.getInt(position)] = false;
+
+		bonesNotAtRest.set(position, bonesNotAtRest.getInt(last));
+		bonesNotAtRest.removeInt(last);
+	}
+
+	/**
+	 * Gets the pose the processor animates the animatable into, indexed the same
+	 * as the processor's model renderer list. A new pose starts out with the
+	 * current values of the bones, and is only replaced when the processor's bones
+	 * change.
+	 */
+	public Pose getPose() {
+		AnimationProcessor<?> processor = getProcessor();
+
+		if (this.pose != null && this.poseRevision == processor.getBoneListRevision())
+			return this.pose;
+
+		List<IBone> modelRendererList = processor.getModelRendererList();
+		Pose pose = new Pose(modelRendererList.size());
+
+		pose.captureFrom(modelRendererList);
+
+		this.pose = pose;
+		this.frontPose = null;
+		this.poseAtRest = false;
+		this.poseRevision = processor.getBoneListRevision();
+
+		return pose;
+	}
+
+	/**
+	 * Gets the front buffer of the pose, the one renderers should draw while the
+	 * next pose is evaluated into the back buffer, or null if the buffers have
+	 * never been swapped. See {@link AnimationProcessor#submitAnimations}.
+	 */
+	public Pose getFrontPose() {
+		return this.frontPose;
+	}
+
+	/**
+	 * Makes the most recently evaluated pose the front buffer, and reuses the old
+	 * front buffer as the back buffer the next pose is evaluated into
+	 */
+	public void swapPoses() {
+		if (this.pose == null)
+			return;
+
+		Pose frontPose = this.frontPose;
+		this.frontPose = this.pose;
+		this.pose = frontPose != null && frontPose.getBoneCount() == this.pose.getBoneCount() ? frontPose
+				: new Pose(this.pose.getBoneCount());
+
+		// The back buffer always starts out as the latest pose, so frames that don't
+		// change the pose can leave it as is
+		this.pose.copyFrom(this.frontPose);
+	}
+
+	/**
+	 * Whether no controller animated the animatable on its last frame with this
+	 * model and every bone had finished resetting, so the pose won't change until a
+	 * controller starts an animation again
+	 */
+	public boolean isPoseAtRest() {
+		return this.poseAtRest;
+	}
+
+	public void setPoseAtRest(boolean poseAtRest) {
+		this.poseAtRest = poseAtRest;
+	}
+
+	/**
+	 * Advances the level of detail by a frame. If the animations shouldn't be
+	 * evaluated this frame, the pose is filled from the last evaluated poses
+	 * instead.
+	 *
+	 * @param updateInterval The update interval picked by the animatable's policy
+	 * @param pose           The pose of this model
+	 * @return whether the animations should be evaluated this frame
+	 */
+	public boolean updateLod(int updateInterval, Pose pose) {
+		if (this.lodToPose == null || this.lodToPose.getBoneCount() != pose.getBoneCount()) {
+			this.lodFramesSinceUpdate = 0;
+
+			return true;
+		}
+
+		AnimationLodPolicy lodPolicy = this.animationData.getLodPolicy();
+
+		if (updateInterval != AnimationLodPolicy.FROZEN && ++this.lodFramesSinceUpdate >= updateInterval) {
+			this.lodFramesSinceUpdate = 0;
+
+			// Evaluation only writes what changed, so it has to start from the last
+			// evaluated pose rather than an interpolated one
+			if (lodPolicy.interpolate())
+				pose.copyFrom(this.lodToPose);
+
+			return true;
+		}
+
+		if (updateInterval > 1 && lodPolicy.interpolate()) {
+			pose.lerp(this.lodFromPose, this.lodToPose, this.lodFramesSinceUpdate / (float) updateInterval);
+		}
+		else {
+			pose.copyFrom(this.lodToPose);
+		}
+
+		return false;
+	}
+
+	/**
+	 * Keeps the pose that was just evaluated for the frames that won't be. When
+	 * interpolating, the pose is replaced by the previously evaluated one, which the
+	 * following frames interpolate away from.
+	 */
+	public void storeLodPose(int updateInterval, Pose pose) {
+		if (this.lodToPose == null || this.lodToPose.getBoneCount() != pose.getBoneCount()) {
+			this.lodFromPose = new Pose(pose.getBoneCount());
+			this.lodToPose = new Pose(pose.getBoneCount());
+
+			this.lodToPose.copyFrom(pose);
+		}
+
+		Pose lodFromPose = this.lodToPose;
+		this.lodToPose = this.lodFromPose;
+		this.lodFromPose = lodFromPose;
+
+		this.lodToPose.copyFrom(pose);
+
+		if (updateInterval > 1 && this.animationData.getLodPolicy().interpolate())
+			pose.copyFrom(this.lodFromPose);
+	}
+}
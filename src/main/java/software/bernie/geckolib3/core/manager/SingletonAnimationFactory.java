@@ -1,27 +1,38 @@
 package software.bernie.geckolib3.core.manager;
 
-import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
 import software.bernie.geckolib3.core.IAnimatable;
 
+import java.util.function.IntFunction;
+
 /**
  * AnimationFactory implementation for singleton/flyweight objects such as Items. Utilises a keyed map to differentiate different instances of the object.
+ * The map is thread-safe and evicts data that is idle or over its maximum size, see {@link AnimationDataCache}.
  */
 public class SingletonAnimationFactory extends AnimationFactory {
-	private final Int2ObjectOpenHashMap<AnimationData> animationDataMap = new Int2ObjectOpenHashMap<>();
+	private final AnimationDataCache animationDataCache;
+	private final IntFunction<AnimationData> animationDataCreator = uniqueID -> createAnimationData();
 
 	public SingletonAnimationFactory(IAnimatable animatable) {
+		this(animatable, AnimationDataCache.DEFAULT_MAXIMUM_SIZE, AnimationDataCache.DEFAULT_IDLE_TIMEOUT_MILLIS);
+	}
+
+	/**
+	 * @param maximumSize       Roughly how many instances to keep data for at most
+	 * @param idleTimeoutMillis How long an instance's data can go unused before it
+	 *                          is evicted, or 0 to never evict idle data
+	 */
+	public SingletonAnimationFactory(IAnimatable animatable, int maximumSize, long idleTimeoutMillis) {
 		super(animatable);
+
+		this.animationDataCache = new AnimationDataCache(maximumSize, idleTimeoutMillis);
 	}
 
 	@Override
 	public AnimationData getOrCreateAnimationData(int uniqueID) {
-		if (!this.animationDataMap.containsKey(uniqueID)) {
-			AnimationData data = new AnimationData();
-
-			this.animatable.registerControllers(data);
-			this.animationDataMap.put(uniqueID, data);
-		}
+		return this.animationDataCache.getOrCreate(uniqueID, this.animationDataCreator);
+	}
 
-		return this.animationDataMap.get(uniqueID);
+	public AnimationDataCache getAnimationDataCache() {
+		return this.animationDataCache;
 	}
-}
\ No newline at end of file
+}
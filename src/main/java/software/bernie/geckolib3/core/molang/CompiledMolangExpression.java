@@ -0,0 +1,23 @@
+package software.bernie.geckolib3.core.molang;
+
+/**
+ * A Molang expression compiled by {@link MolangCompiler}. Each compiled
+ * expression is an instance of its own generated class, which evaluates the
+ * expression as straight-line arithmetic instead of walking the value tree.
+ */
+public abstract class CompiledMolangExpression {
+	/**
+	 * The variables and values the generated code reads, by index
+	 */
+	protected final Object[] references;
+
+	protected CompiledMolangExpression(Object[] references) {
+		this.references = references;
+	}
+
+	/**
+	 * Evaluates the expression with the {@link MolangContext} bound to the current
+	 * thread, the same as the expression it was compiled from
+	 */
+	public abstract double get();
+}
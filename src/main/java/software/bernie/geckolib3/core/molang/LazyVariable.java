@@ -2,37 +2,161 @@ package software.bernie.geckolib3.core.molang;
 
 import com.eliotlash.mclib.math.Variable;
 
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.DoubleSupplier;
 
 /**
  * Lazy override of Variable, to allow for deferred value calculation. <br>
- * Optimises rendering as values are not touched until needed (if at all)
+ * Optimises rendering as values are not touched until needed (if at all)<br>
+ * While a {@link MolangContext} is bound to the current thread, the value is
+ * stored in that context instead
  */
 public class LazyVariable extends Variable {
+	private static final AtomicInteger NEXT_SLOT = new AtomicInteger();
+
+	// Assigned the first time it's needed, so variables that are never registered or
+	// used don't take up room in every context
+	private volatile int slot = -1;
+	private final int localIndex;
+	private double value;
+	// Null when the shared value was set directly
 	private DoubleSupplier valueSupplier;
 
 	public LazyVariable(String name, double value) {
-		this(name, () -> value);
+		this(name, value, -1);
 	}
 
 	public LazyVariable(String name, DoubleSupplier valueSupplier) {
 		super(name, 0);
 
+		this.localIndex = -1;
 		this.valueSupplier = valueSupplier;
 	}
 
+	private LazyVariable(String name, double value, int localIndex) {
+		super(name, 0);
+
+		this.localIndex = localIndex;
+		this.value = value;
+	}
+
+	/**
+	 * Creates a local of a multi-statement expression. In a {@link MolangContext},
+	 * its value is stored at the given index of the expression's local frame,
+	 * which only lasts for one evaluation. Use
+	 * {@link software.bernie.geckolib3.core.molang.expressions.MolangMultiStatement#addLocal}
+	 * instead.
+	 */
+	public static LazyVariable local(String name, int localIndex) {
+		if (localIndex < 0)
+			throw new IllegalArgumentException("Local index can't be negative: " + localIndex);
+
+		return new LazyVariable(name, 0, localIndex);
+	}
+
 	@Override
 	public void set(double value) {
-		this.valueSupplier = () -> value;
+		MolangContext context = MolangContext.current();
+
+		if (context == null) {
+			this.value = value;
+			this.valueSupplier = null;
+		}
+		else if (this.localIndex >= 0) {
+			context.setLocal(this.localIndex, value);
+		}
+		else {
+			context.setValue(getSlot(), value);
+		}
 	}
 
+	/**
+	 * Sets the value to a supplier that is called every time the variable is read.
+	 * Locals are evaluated straight away while a context is bound, as their frame
+	 * only holds values.
+	 */
 	public void set(DoubleSupplier valueSupplier) {
-		this.valueSupplier = valueSupplier;
+		MolangContext context = MolangContext.current();
+
+		if (context == null) {
+			this.valueSupplier = valueSupplier;
+		}
+		else if (this.localIndex >= 0) {
+			context.setLocal(this.localIndex, valueSupplier.getAsDouble());
+		}
+		else {
+			context.setValue(getSlot(), valueSupplier);
+		}
 	}
 
 	@Override
 	public double get() {
-		return this.valueSupplier.getAsDouble();
+		MolangContext context = MolangContext.current();
+
+		if (context == null)
+			return getSharedValue();
+
+		return this.localIndex >= 0 ? context.getLocal(this.localIndex) : context.getValue(getSlot(), this);
+	}
+
+	/**
+	 * Gets the value of this variable ignoring any bound {@link MolangContext}
+	 */
+	public double getSharedValue() {
+		return this.valueSupplier != null ? this.valueSupplier.getAsDouble() : this.value;
+	}
+
+	/**
+	 * Makes this variable's shared value the same as another's
+	 */
+	void setSharedValue(LazyVariable other) {
+		this.value = other.value;
+		this.valueSupplier = other.valueSupplier;
+	}
+
+	/**
+	 * Whether this is a local of a multi-statement expression
+	 */
+	public boolean isLocal() {
+		return this.localIndex >= 0;
+	}
+
+	/**
+	 * Gets the index of this local in its expression's frame, or -1 if it isn't a
+	 * local
+	 */
+	public int getLocalIndex() {
+		return this.localIndex;
+	}
+
+	/**
+	 * Gets the index of this variable's value in a {@link MolangContext}. Slots are
+	 * handed out densely as variables are registered with {@link MolangParser} and
+	 * never change, so they can be looked up once and used to set values without
+	 * going through the name. Locals don't have one.
+	 *
+	 * @return the slot, or -1 for locals
+	 */
+	public int getSlot() {
+		int slot = this.slot;
+
+		if (slot < 0 && this.localIndex < 0)
+			slot = assignSlot();
+
+		return slot;
+	}
+
+	private synchronized int assignSlot() {
+		if (this.slot < 0) {
+			int slot = NEXT_SLOT.getAndIncrement();
+
+			if (getName().startsWith("query."))
+				MolangContext.markQuerySlot(slot);
+
+			this.slot = slot;
+		}
+
+		return this.slot;
 	}
 
 	public static LazyVariable from(Variable variable) {
@@ -0,0 +1,736 @@
+package software.bernie.geckolib3.core.molang;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.mclib.math.Group;
+import com.eliotlash.mclib.math.IValue;
+import com.eliotlash.mclib.math.Negate;
+import com.eliotlash.mclib.math.Negative;
+import com.eliotlash.mclib.math.Operator;
+import com.eliotlash.mclib.math.Ternary;
+import com.eliotlash.mclib.math.functions.Function;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import software.bernie.geckolib3.core.molang.expressions.MolangAssignment;
+import software.bernie.geckolib3.core.molang.expressions.MolangExpression;
+import software.bernie.geckolib3.core.molang.expressions.MolangMultiStatement;
+import software.bernie.geckolib3.core.molang.expressions.MolangValue;
+import software.bernie.geckolib3.core.molang.functions.CosDegrees;
+import software.bernie.geckolib3.core.molang.functions.SinDegrees;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntSupplier;
+
+/**
+ * Compiles parsed Molang expressions into hidden classes. The generated code
+ * does the arithmetic of the expression directly and reads variables straight
+ * from the bound {@link MolangContext} by slot, and locals by their index in the
+ * expression's frame, instead of going through a
+ * virtual call for every node of the value tree.<br>
+ * Nodes the compiler doesn't know, such as most functions, are called through
+ * the tree the same as before, so compiled expressions always give the same
+ * results as interpreted ones. Generated classes are unloaded once their
+ * expression is no longer used.
+ */
+public final class MolangCompiler {
+	private static final MethodHandles.Lookup LOOKUP = MethodHandles.lookup();
+	private static final MethodType CONSTRUCTOR_TYPE = MethodType.methodType(void.class, Object[].class);
+
+	private MolangCompiler() {
+	}
+
+	/**
+	 * Compiles an expression.
+	 *
+	 * @return the compiled expression, or null if it couldn't be compiled and has to
+	 *         be interpreted
+	 */
+	public static CompiledMolangExpression compile(MolangExpression expression) {
+		try {
+			Generator generator = new Generator(expression);
+
+			generator.compileExpression(expression);
+
+			MethodHandles.Lookup lookup = LOOKUP.defineHiddenClass(generator.toClassFile(), true);
+
+			return (CompiledMolangExpression)lookup.findConstructor(lookup.lookupClass(), CONSTRUCTOR_TYPE)
+					.invoke(generator.references.toArray());
+		}
+		catch (Throwable e) {
+			// The caller keeps interpreting the expression, which gives the same results
+			return null;
+		}
+	}
+
+	// Called by the generated code
+
+	static double load(MolangContext context, int slot, LazyVariable variable) {
+		return context != null ? context.getValue(slot, variable) : variable.getSharedValue();
+	}
+
+	static double loadLocal(MolangContext context, int localIndex, LazyVariable variable) {
+		return context != null ? context.getLocal(localIndex) : variable.getSharedValue();
+	}
+
+	static double assign(double value, MolangContext context, int slot, LazyVariable variable) {
+		if (context != null) {
+			context.setValue(slot, value);
+		}
+		else {
+			variable.set(value);
+		}
+
+		return value;
+	}
+
+	static double assignLocal(double value, MolangContext context, int localIndex, LazyVariable variable) {
+		if (context != null) {
+			context.setLocal(localIndex, value);
+		}
+		else {
+			variable.set(value);
+		}
+
+		return value;
+	}
+
+	static double negate(double value) {
+		return value == 0 ? 1 : 0;
+	}
+
+	/**
+	 * Writes the class file of one compiled expression. The class extends
+	 * {@link CompiledMolangExpression} and has a single method, get(), which keeps
+	 * the references array in local 1 and the bound context in local 2.
+	 */
+	private static class Generator {
+		private static final String CLASS_NAME = "software/bernie/geckolib3/core/molang/CompiledMolang";
+		private static final String SUPER_NAME = "software/bernie/geckolib3/core/molang/CompiledMolangExpression";
+		private static final String COMPILER_NAME = "software/bernie/geckolib3/core/molang/MolangCompiler";
+		private static final String CONTEXT_NAME = "software/bernie/geckolib3/core/molang/MolangContext";
+		private static final String VARIABLE_NAME = "software/bernie/geckolib3/core/molang/LazyVariable";
+		private static final String VALUE_NAME = "com/eliotlash/mclib/math/IValue";
+		private static final String OPERATION_NAME = "com/eliotlash/mclib/math/Operation";
+		private static final String MATH_NAME = "java/lang/Math";
+		private static final String REFERENCES_DESCRIPTOR = "[Ljava/lang/Object;";
+
+		// Branch offsets are signed shorts
+		private static final int MAX_CODE_LENGTH = Short.MAX_VALUE;
+
+		// Verification types of the stack map frames
+		private static final int TYPE_INTEGER = 1;
+		private static final int TYPE_DOUBLE = 3;
+		private static final int TYPE_OBJECT = 7;
+
+		private final MolangExpression root;
+		private final List<Object> references = new ObjectArrayList<>();
+		private final Reference2IntMap<Object> referenceIndexes = new Reference2IntOpenHashMap<>();
+		private final ByteVector constantPool = new ByteVector();
+		private final Object2IntMap<String> constantIndexes = new Object2IntOpenHashMap<>();
+		private int constantCount = 1;
+		private final ByteVector code = new ByteVector();
+		// The verification type of each operand stack entry, objects also store their
+		// class constant in the upper bits
+		private final IntArrayList stack = new IntArrayList();
+		private int stackSize;
+		private int maxStack;
+		private final ByteVector frames = new ByteVector();
+		private int frameCount;
+		private int lastFrameOffset = -1;
+
+		private Generator(MolangExpression root) {
+			this.root = root;
+			this.referenceIndexes.defaultReturnValue(-1);
+			this.constantIndexes.defaultReturnValue(-1);
+		}
+
+		private void compileExpression(MolangExpression expression) {
+			// Nested statements with locals need a frame of their own, which only their
+			// get() sets up
+			if (expression instanceof MolangMultiStatement multiStatement
+					&& (multiStatement == this.root || multiStatement.locals.isEmpty())) {
+				List<MolangExpression> expressions = multiStatement.expressions;
+
+				if (expressions.isEmpty()) {
+					pushDouble(0);
+
+					return;
+				}
+
+				for (int i = 0; i < expressions.size(); i++) {
+					if (i > 0)
+						instruction(0x58, 1, 0); // pop2
+
+					compileExpression(expressions.get(i));
+				}
+			}
+			else if (expression instanceof MolangValue molangValue) {
+				compileValue(molangValue.value);
+			}
+			else if (expression instanceof MolangAssignment assignment
+					&& assignment.variable instanceof LazyVariable variable) {
+				compileValue(assignment.expression);
+				pushLocal(2, objectType(CONTEXT_NAME));
+				pushInt(variable.isLocal() ? variable.getLocalIndex() : variable.getSlot());
+				loadReference(variable, VARIABLE_NAME);
+				invokeStatic(COMPILER_NAME, variable.isLocal() ? "assignLocal" : "assign",
+						"(DL" + CONTEXT_NAME + ";IL" + VARIABLE_NAME + ";)D", 4);
+			}
+			else {
+				callTree(expression);
+			}
+		}
+
+		private void compileValue(IValue value) {
+			if (value instanceof MolangExpression expression) {
+				compileExpression(expression);
+			}
+			else if (value instanceof LazyVariable variable) {
+				pushLocal(2, objectType(CONTEXT_NAME));
+				pushInt(variable.isLocal() ? variable.getLocalIndex() : variable.getSlot());
+				loadReference(variable, VARIABLE_NAME);
+				invokeStatic(COMPILER_NAME, variable.isLocal() ? "loadLocal" : "load",
+						"(L" + CONTEXT_NAME + ";IL" + VARIABLE_NAME + ";)D", 3);
+			}
+			else if (value instanceof Constant) {
+				pushDouble(value.get());
+			}
+			else if (value instanceof Group group && MolangNodes.getGroupValue(group) != null) {
+				compileValue(MolangNodes.getGroupValue(group));
+			}
+			else if (value instanceof Negative negative) {
+				compileValue(negative.value);
+				instruction(0x77, 1, TYPE_DOUBLE); // dneg
+			}
+			else if (value instanceof Negate negate) {
+				compileValue(negate.value);
+				invokeStatic(COMPILER_NAME, "negate", "(D)D", 1);
+			}
+			else if (value instanceof Ternary ternary) {
+				compileTernary(ternary);
+			}
+			else if (value instanceof Operator operator) {
+				compileOperator(operator);
+			}
+			else if (!(value instanceof Function function) || !compileFunction(function)) {
+				callTree(value);
+			}
+		}
+
+		// Only the taken branch is evaluated, the same as Ternary.get()
+		private void compileTernary(Ternary ternary) {
+			compileValue(ternary.condition);
+			pushDouble(0);
+			instruction(0x97, 2, TYPE_INTEGER); // dcmpl
+
+			int ifFalse = jump(0x99, 1); // ifeq
+			int[] branchStack = this.stack.toIntArray();
+
+			compileValue(ternary.ifTrue);
+
+			int end = jump(0xa7, 0); // goto
+
+			resetStack(branchStack);
+			label(ifFalse);
+			compileValue(ternary.ifFalse);
+			label(end);
+		}
+
+		private void compileOperator(Operator operator) {
+			int opcode;
+
+			switch (operator.operation) {
+				case ADD:
+					opcode = 0x63; // dadd
+					break;
+				case SUB:
+					opcode = 0x67; // dsub
+					break;
+				case MUL:
+					opcode = 0x6b; // dmul
+					break;
+				case MOD:
+					opcode = 0x73; // drem
+					break;
+				case POW:
+					compileValue(operator.a);
+					compileValue(operator.b);
+					invokeStatic(MATH_NAME, "pow", "(DD)D", 2);
+
+					return;
+				default:
+					// Division, comparisons and logic keep mclib's semantics, such as treating a
+					// divisor of 0 as 1 and its epsilon for equality
+					int operation = fieldReference(OPERATION_NAME, operator.operation.name(),
+							"L" + OPERATION_NAME + ";");
+
+					this.code.putByte(0xb2).putShort(operation); // getstatic
+					push(objectType(OPERATION_NAME));
+					compileValue(operator.a);
+					compileValue(operator.b);
+					// invokevirtual
+					this.code.putByte(0xb6).putShort(methodReference(OPERATION_NAME, "calculate", "(DD)D"));
+					pop(3);
+					push(TYPE_DOUBLE);
+
+					return;
+			}
+
+			compileValue(operator.a);
+			compileValue(operator.b);
+			instruction(opcode, 2, TYPE_DOUBLE);
+		}
+
+		/**
+		 * Inlines functions whose behaviour is known, as long as nothing replaced them
+		 *
+		 * @return false if the function has to be called through the tree
+		 */
+		private boolean compileFunction(Function function) {
+			IValue[] args = MolangNodes.getFunctionArgs(function);
+
+			if (args == null || !MolangNodes.isBuiltInFunction(function))
+				return false;
+
+			if (function.getClass() == SinDegrees.class || function.getClass() == CosDegrees.class) {
+				if (args.length != 1)
+					return false;
+
+				compileValue(args[0]);
+				pushDouble(180);
+				instruction(0x6f, 2, TYPE_DOUBLE); // ddiv
+				pushDouble(Math.PI);
+				instruction(0x6b, 2, TYPE_DOUBLE); // dmul
+				invokeStatic(MATH_NAME, function.getClass() == SinDegrees.class ? "sin" : "cos", "(D)D", 1);
+
+				return true;
+			}
+
+			String method;
+			int arguments;
+
+			switch (function.getName()) {
+				case "math.abs":
+					method = "abs";
+					arguments = 1;
+					break;
+				case "math.ceil":
+					method = "ceil";
+					arguments = 1;
+					break;
+				case "math.floor":
+					method = "floor";
+					arguments = 1;
+					break;
+				case "math.sqrt":
+					method = "sqrt";
+					arguments = 1;
+					break;
+				case "math.exp":
+					method = "exp";
+					arguments = 1;
+					break;
+				case "math.ln":
+					method = "log";
+					arguments = 1;
+					break;
+				case "math.pow":
+					method = "pow";
+					arguments = 2;
+					break;
+				case "math.min":
+					method = "min";
+					arguments = 2;
+					break;
+				case "math.max":
+					method = "max";
+					arguments = 2;
+					break;
+				default:
+					return false;
+			}
+
+			if (args.length != arguments)
+				return false;
+
+			for (IValue arg : args) {
+				compileValue(arg);
+			}
+
+			invokeStatic(MATH_NAME, method, arguments == 1 ? "(D)D" : "(DD)D", arguments);
+
+			return true;
+		}
+
+		// Evaluates a node the same way as the interpreter
+		private void callTree(IValue value) {
+			loadReference(value, VALUE_NAME);
+			this.code.putByte(0xb9).putShort(interfaceMethodReference(VALUE_NAME, "get", "()D")).putByte(1).putByte(0);
+			pop(1);
+			push(TYPE_DOUBLE);
+		}
+
+		// Operand stack
+
+		private int objectType(String className) {
+			return classReference(className) << 8 | TYPE_OBJECT;
+		}
+
+		private void push(int type) {
+			this.stack.add(type);
+			this.stackSize += type == TYPE_DOUBLE ? 2 : 1;
+			this.maxStack = Math.max(this.maxStack, this.stackSize);
+		}
+
+		private void pop(int count) {
+			for (int i = 0; i < count; i++) {
+				int type = this.stack.removeInt(this.stack.size() - 1);
+
+				this.stackSize -= type == TYPE_DOUBLE ? 2 : 1;
+			}
+		}
+
+		private void resetStack(int[] types) {
+			this.stack.clear();
+			this.stackSize = 0;
+
+			for (int type : types) {
+				push(type);
+			}
+		}
+
+		// Instructions
+
+		private void instruction(int opcode, int popped, int pushed) {
+			this.code.putByte(opcode);
+			pop(popped);
+
+			if (pushed != 0)
+				push(pushed);
+		}
+
+		private void invokeStatic(String owner, String name, String descriptor, int arguments) {
+			this.code.putByte(0xb8).putShort(methodReference(owner, name, descriptor));
+			pop(arguments);
+			push(TYPE_DOUBLE);
+		}
+
+		private void pushLocal(int local, int type) {
+			this.code.putByte(0x2a + local); // aload_<n>
+			push(type);
+		}
+
+		private void pushInt(int value) {
+			if (value >= -1 && value <= 5) {
+				this.code.putByte(0x03 + value); // iconst_<n>
+			}
+			else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+				this.code.putByte(0x10).putByte(value); // bipush
+			}
+			else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+				this.code.putByte(0x11).putShort(value); // sipush
+			}
+			else {
+				int index = constant("I:" + value, () -> {
+					this.constantPool.putByte(3).putInt(value);
+
+					return 1;
+				});
+
+				this.code.putByte(0x13).putShort(index); // ldc_w
+			}
+
+			push(TYPE_INTEGER);
+		}
+
+		private void pushDouble(double value) {
+			if (Double.doubleToRawLongBits(value) == 0L) {
+				this.code.putByte(0x0e); // dconst_0
+			}
+			else if (value == 1) {
+				this.code.putByte(0x0f); // dconst_1
+			}
+			else {
+				long bits = Double.doubleToRawLongBits(value);
+				int index = constant("D:" + bits, () -> {
+					this.constantPool.putByte(6).putLong(bits);
+
+					return 2;
+				});
+
+				this.code.putByte(0x14).putShort(index); // ldc2_w
+			}
+
+			push(TYPE_DOUBLE);
+		}
+
+		// Pushes an object the generated code needs, cast to the given class
+		private void loadReference(Object reference, String className) {
+			int index = this.referenceIndexes.getInt(reference);
+
+			if (index < 0) {
+				index = this.references.size();
+				this.references.add(reference);
+				this.referenceIndexes.put(reference, index);
+			}
+
+			pushLocal(1, objectType("[Ljava/lang/Object;"));
+			pushInt(index);
+			this.code.putByte(0x32); // aaload
+			this.code.putByte(0xc0).putShort(classReference(className)); // checkcast
+			pop(2);
+			push(objectType(className));
+		}
+
+		// Writes a branch with its offset to be filled in by label
+		private int jump(int opcode, int popped) {
+			int offset = this.code.length();
+
+			this.code.putByte(opcode).putShort(0);
+			pop(popped);
+
+			return offset;
+		}
+
+		// Points a branch here and records the stack map frame for this offset
+		private void label(int jump) {
+			int offset = this.code.length();
+
+			this.code.setShort(jump + 1, offset - jump);
+
+			// Nested branches can end at the same offset, with the same stack
+			if (offset == this.lastFrameOffset)
+				return;
+
+			this.frames.putByte(255) // full_frame
+					.putShort(this.lastFrameOffset < 0 ? offset : offset - this.lastFrameOffset - 1)
+					.putShort(3);
+			putVerificationType(this.frames, objectType(CLASS_NAME));
+			putVerificationType(this.frames, objectType(REFERENCES_DESCRIPTOR));
+			putVerificationType(this.frames, objectType(CONTEXT_NAME));
+			this.frames.putShort(this.stack.size());
+
+			for (int i = 0; i < this.stack.size(); i++) {
+				putVerificationType(this.frames, this.stack.getInt(i));
+			}
+
+			this.frameCount++;
+			this.lastFrameOffset = offset;
+		}
+
+		private static void putVerificationType(ByteVector output, int type) {
+			output.putByte(type & 0xff);
+
+			if ((type & 0xff) == TYPE_OBJECT)
+				output.putShort(type >>> 8);
+		}
+
+		// Constant pool
+
+		private int constant(String key, IntSupplier writer) {
+			int index = this.constantIndexes.getInt(key);
+
+			if (index < 0) {
+				index = this.constantCount;
+				this.constantCount += writer.getAsInt();
+				this.constantIndexes.put(key, index);
+			}
+
+			return index;
+		}
+
+		private int utf8(String value) {
+			return constant("U:" + value, () -> {
+				this.constantPool.putByte(1).putUtf8(value);
+
+				return 1;
+			});
+		}
+
+		private int classReference(String name) {
+			int nameIndex = utf8(name);
+
+			return constant("C:" + name, () -> {
+				this.constantPool.putByte(7).putShort(nameIndex);
+
+				return 1;
+			});
+		}
+
+		private int memberReference(int tag, String owner, String name, String descriptor) {
+			int ownerIndex = classReference(owner);
+			int nameIndex = utf8(name);
+			int descriptorIndex = utf8(descriptor);
+			int nameAndType = constant("N:" + name + ":" + descriptor, () -> {
+				this.constantPool.putByte(12).putShort(nameIndex).putShort(descriptorIndex);
+
+				return 1;
+			});
+
+			return constant(tag + ":" + owner + "." + name + ":" + descriptor, () -> {
+				this.constantPool.putByte(tag).putShort(ownerIndex).putShort(nameAndType);
+
+				return 1;
+			});
+		}
+
+		private int fieldReference(String owner, String name, String descriptor) {
+			return memberReference(9, owner, name, descriptor);
+		}
+
+		private int methodReference(String owner, String name, String descriptor) {
+			return memberReference(10, owner, name, descriptor);
+		}
+
+		private int interfaceMethodReference(String owner, String name, String descriptor) {
+			return memberReference(11, owner, name, descriptor);
+		}
+
+		// Class file
+
+		private byte[] toClassFile() {
+			this.code.putByte(0xaf); // dreturn
+
+			if (this.code.length() > MAX_CODE_LENGTH || this.constantCount > 0xffff)
+				throw new IllegalStateException("Expression is too large to compile");
+
+			// get() starts by loading the references and the context into locals
+			ByteVector prologue = new ByteVector();
+
+			prologue.putByte(0x2a) // aload_0
+					.putByte(0xb4).putShort(fieldReference(SUPER_NAME, "references", REFERENCES_DESCRIPTOR)) // getfield
+					.putByte(0x4c) // astore_1
+					.putByte(0xb8).putShort(methodReference(CONTEXT_NAME, "current", "()L" + CONTEXT_NAME + ";"))
+					.putByte(0x4d); // astore_2
+
+			int thisClass = classReference(CLASS_NAME);
+			int superClass = classReference(SUPER_NAME);
+			int constructorName = utf8("<init>");
+			int constructorDescriptor = utf8("(" + REFERENCES_DESCRIPTOR + ")V");
+			int superConstructor = methodReference(SUPER_NAME, "<init>", "(" + REFERENCES_DESCRIPTOR + ")V");
+			int getName = utf8("get");
+			int getDescriptor = utf8("()D");
+			int codeName = utf8("Code");
+			int frameTableName = this.frameCount > 0 ? utf8("StackMapTable") : 0;
+
+			ByteVector classFile = new ByteVector();
+
+			classFile.putInt(0xcafebabe).putShort(0).putShort(52) // Java 8
+					.putShort(this.constantCount).putBytes(this.constantPool)
+					.putShort(0x0010 | 0x0020) // final super
+					.putShort(thisClass).putShort(superClass)
+					.putShort(0) // interfaces
+					.putShort(0) // fields
+					.putShort(2); // methods
+
+			// Constructor, passes the references to the super class
+			ByteVector constructor = new ByteVector()
+					.putByte(0x2a).putByte(0x2b) // aload_0, aload_1
+					.putByte(0xb7).putShort(superConstructor) // invokespecial
+					.putByte(0xb1); // return
+
+			classFile.putShort(0x0001).putShort(constructorName).putShort(constructorDescriptor).putShort(1)
+					.putShort(codeName).putInt(12 + constructor.length())
+					.putShort(2).putShort(2).putInt(constructor.length()).putBytes(constructor)
+					.putShort(0).putShort(0);
+
+			// get(), frame offsets were recorded without the prologue, which is
+			// accounted for by the first frame's delta
+			if (this.frameCount > 0)
+				this.frames.setShort(1, this.frames.getShort(1) + prologue.length());
+
+			int codeLength = prologue.length() + this.code.length();
+			int frameTableLength = this.frameCount > 0 ? 6 + 2 + this.frames.length() : 0;
+
+			classFile.putShort(0x0001).putShort(getName).putShort(getDescriptor).putShort(1)
+					.putShort(codeName).putInt(12 + codeLength + frameTableLength)
+					.putShort(Math.max(this.maxStack, 2)).putShort(3).putInt(codeLength)
+					.putBytes(prologue).putBytes(this.code)
+					.putShort(0) // exception table
+					.putShort(this.frameCount > 0 ? 1 : 0);
+
+			if (this.frameCount > 0)
+				classFile.putShort(frameTableName).putInt(2 + this.frames.length()).putShort(this.frameCount)
+						.putBytes(this.frames);
+
+			classFile.putShort(0); // class attributes
+
+			return classFile.toByteArray();
+		}
+	}
+
+	/**
+	 * A growable big-endian byte buffer
+	 */
+	private static class ByteVector {
+		private byte[] data = new byte[64];
+		private int length;
+
+		private ByteVector ensure(int size) {
+			if (this.length + size > this.data.length)
+				this.data = Arrays.copyOf(this.data, Math.max(this.data.length * 2, this.length + size));
+
+			return this;
+		}
+
+		private ByteVector putByte(int value) {
+			ensure(1).data[this.length++] = (byte)value;
+
+			return this;
+		}
+
+		private ByteVector putShort(int value) {
+			return putByte(value >>> 8).putByte(value);
+		}
+
+		private ByteVector putInt(int value) {
+			return putShort(value >>> 16).putShort(value);
+		}
+
+		private ByteVector putLong(long value) {
+			return putInt((int)(value >>> 32)).putInt((int)value);
+		}
+
+		private ByteVector putUtf8(String value) {
+			byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+
+			return putShort(bytes.length).putBytes(bytes, bytes.length);
+		}
+
+		private ByteVector putBytes(ByteVector other) {
+			return putBytes(other.data, other.length);
+		}
+
+		private ByteVector putBytes(byte[] bytes, int count) {
+			ensure(count);
+			System.arraycopy(bytes, 0, this.data, this.length, count);
+			this.length += count;
+
+			return this;
+		}
+
+		private void setShort(int offset, int value) {
+			this.data[offset] = (byte)(value >>> 8);
+			this.data[offset + 1] = (byte)value;
+		}
+
+		private int getShort(int offset) {
+			return (this.data[offset] & 0xff) << 8 | this.data[offset + 1] & 0xff;
+		}
+
+		private int length() {
+			return this.length;
+		}
+
+		private byte[] toByteArray() {
+			return Arrays.copyOf(this.data, this.length);
+		}
+	}
+}
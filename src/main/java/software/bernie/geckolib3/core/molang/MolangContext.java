@@ -0,0 +1,285 @@
+package software.bernie.geckolib3.core.molang;
+
+import java.util.Arrays;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Holds the values of Molang variables, including the locals of multi-statement
+ * expressions, for one animatable or thread. While a context is bound to a
+ * thread, setting or reading a {@link LazyVariable} on that thread uses the
+ * context's value instead of the variable's shared one, so parsed expressions
+ * can be shared and evaluated for several animatables at once. Variables the
+ * context has no value for fall back to their shared value.<br>
+ * Values are stored in a frame of doubles indexed by each variable's slot, so
+ * setting a value is an array store and copying a context is an array copy.
+ * Values can also be given as a {@link DoubleSupplier}, which is only called
+ * when the variable is read.<br>
+ * The locals of multi-statement expressions are kept apart, in a stack of
+ * frames. Each evaluation of an expression with locals gets a new frame that
+ * starts out as zeroes and is dropped once the evaluation is done.<br>
+ * Each {@link software.bernie.geckolib3.core.manager.AnimationData} owns one,
+ * which is bound while it is animated.
+ */
+public class MolangContext {
+	private static final ThreadLocal<MolangContext> CURRENT = new ThreadLocal<>();
+
+	// What each slot of the frame holds
+	private static final byte UNSET = 0;
+	private static final byte VALUE = 1;
+	private static final byte SUPPLIER = 2;
+
+	// Whether each slot belongs to a query variable. Only replaced as a whole, so
+	// it can be read without locking
+	private static volatile boolean[] querySlots = new boolean[0];
+
+	private double[] values = new double[16];
+	private byte[] states = new byte[16];
+	// Only allocated once a supplier is set
+	private DoubleSupplier[] suppliers;
+	private double[] locals = new double[16];
+	private int localBase;
+	private int localTop;
+
+	/**
+	 * Gets the context bound to the current thread, or null if variables should use
+	 * their shared values
+	 */
+	public static MolangContext current() {
+		return CURRENT.get();
+	}
+
+	/**
+	 * Binds this context to the current thread.
+	 *
+	 * @return the context that was bound before, to pass to
+	 *         {@link MolangContext#restore(MolangContext)}
+	 */
+	public MolangContext bind() {
+		MolangContext previous = CURRENT.get();
+
+		CURRENT.set(this);
+
+		return previous;
+	}
+
+	/**
+	 * Binds a previously bound context to the current thread again, or unbinds the
+	 * current one if it is null
+	 */
+	public static void restore(MolangContext previous) {
+		if (previous == null) {
+			CURRENT.remove();
+		}
+		else {
+			CURRENT.set(previous);
+		}
+	}
+
+	/**
+	 * Sets the value of a variable in this context only
+	 */
+	public void setValue(LazyVariable variable, double value) {
+		if (variable.isLocal()) {
+			setLocal(variable.getLocalIndex(), value);
+		}
+		else {
+			setValue(variable.getSlot(), value);
+		}
+	}
+
+	/**
+	 * Sets the value of a variable in this context only. The supplier is called
+	 * every time the variable is read, or pass null to use the shared value again.
+	 */
+	public void setValue(LazyVariable variable, DoubleSupplier value) {
+		if (variable.isLocal()) {
+			setLocal(variable.getLocalIndex(), value == null ? 0 : value.getAsDouble());
+		}
+		else {
+			setValue(variable.getSlot(), value);
+		}
+	}
+
+	/**
+	 * Sets the value of the variable with the given slot, see
+	 * {@link LazyVariable#getSlot()}
+	 */
+	public void setValue(int slot, double value) {
+		ensureCapacity(slot);
+
+		this.values[slot] = value;
+		this.states[slot] = VALUE;
+
+		if (this.suppliers != null)
+			this.suppliers[slot] = null;
+	}
+
+	/**
+	 * Sets the value of the variable with the given slot, see
+	 * {@link LazyVariable#getSlot()}
+	 */
+	public void setValue(int slot, DoubleSupplier value) {
+		if (value == null) {
+			if (slot < this.states.length) {
+				this.states[slot] = UNSET;
+
+				if (this.suppliers != null)
+					this.suppliers[slot] = null;
+			}
+
+			return;
+		}
+
+		ensureCapacity(slot);
+
+		if (this.suppliers == null)
+			this.suppliers = new DoubleSupplier[this.values.length];
+
+		this.suppliers[slot] = value;
+		this.states[slot] = SUPPLIER;
+	}
+
+	/**
+	 * Gets the value of a variable in this context, or its shared value if this
+	 * context doesn't have one
+	 */
+	public double getValue(LazyVariable variable) {
+		return variable.isLocal() ? getLocal(variable.getLocalIndex()) : getValue(variable.getSlot(), variable);
+	}
+
+	double getValue(int slot, LazyVariable variable) {
+		if (slot < this.states.length) {
+			byte state = this.states[slot];
+
+			if (state == VALUE)
+				return this.values[slot];
+
+			if (state == SUPPLIER)
+				return this.suppliers[slot].getAsDouble();
+		}
+
+		return variable.getSharedValue();
+	}
+
+	/**
+	 * Starts a frame for the locals of an expression that is about to be evaluated.
+	 *
+	 * @param size The amount of locals the expression has
+	 * @return the start of the previous frame, to pass to
+	 *         {@link MolangContext#exitFrame(int)}
+	 */
+	public int enterFrame(int size) {
+		int previousBase = this.localBase;
+		int base = this.localTop;
+
+		if (base + size > this.locals.length)
+			this.locals = Arrays.copyOf(this.locals, Math.max(base + size, this.locals.length * 2));
+
+		Arrays.fill(this.locals, base, base + size, 0);
+
+		this.localBase = base;
+		this.localTop = base + size;
+
+		return previousBase;
+	}
+
+	/**
+	 * Drops the frame started by the last call to
+	 * {@link MolangContext#enterFrame(int)}
+	 */
+	public void exitFrame(int previousBase) {
+		this.localTop = this.localBase;
+		this.localBase = previousBase;
+	}
+
+	double getLocal(int index) {
+		int i = this.localBase + index;
+
+		return i < this.locals.length ? this.locals[i] : 0;
+	}
+
+	void setLocal(int index, double value) {
+		int i = this.localBase + index;
+
+		if (i >= this.locals.length)
+			this.locals = Arrays.copyOf(this.locals, Math.max(i + 1, this.locals.length * 2));
+
+		this.locals[i] = value;
+	}
+
+	/**
+	 * Removes every value from this context, so all variables use their shared
+	 * values again
+	 */
+	public void clear() {
+		Arrays.fill(this.states, UNSET);
+
+		if (this.suppliers != null)
+			Arrays.fill(this.suppliers, null);
+	}
+
+	/**
+	 * Removes the values of every query variable from this context, so they use
+	 * their shared values again. The tick methods that don't set the queries
+	 * themselves call this, as the queries were set on the shared variables before
+	 * the context was bound, and values left by an earlier tick would hide them.
+	 */
+	public void clearQueries() {
+		boolean[] querySlots = MolangContext.querySlots;
+		int length = Math.min(querySlots.length, this.states.length);
+
+		for (int slot = 0; slot < length; slot++) {
+			if (querySlots[slot]) {
+				this.states[slot] = UNSET;
+
+				if (this.suppliers != null)
+					this.suppliers[slot] = null;
+			}
+		}
+	}
+
+	// Called once for each query variable, when it's given its slot
+	static synchronized void markQuerySlot(int slot) {
+		boolean[] querySlots = Arrays.copyOf(MolangContext.querySlots,
+				Math.max(slot + 1, MolangContext.querySlots.length));
+
+		querySlots[slot] = true;
+
+		MolangContext.querySlots = querySlots;
+	}
+
+	/**
+	 * Replaces every variable value of this context with the values of another
+	 * one. The locals of expressions being evaluated aren't copied.
+	 */
+	public void copyFrom(MolangContext other) {
+		this.values = other.values.clone();
+		this.states = other.states.clone();
+		this.suppliers = other.suppliers == null ? null : other.suppliers.clone();
+	}
+
+	/**
+	 * Creates a new context with the same values as this one, for example to
+	 * snapshot an animatable's Molang state
+	 */
+	public MolangContext copy() {
+		MolangContext copy = new MolangContext();
+
+		copy.copyFrom(this);
+
+		return copy;
+	}
+
+	private void ensureCapacity(int slot) {
+		if (slot < this.values.length)
+			return;
+
+		int length = Math.max(slot + 1, this.values.length * 2);
+
+		this.values = Arrays.copyOf(this.values, length);
+		this.states = Arrays.copyOf(this.states, length);
+
+		if (this.suppliers != null)
+			this.suppliers = Arrays.copyOf(this.suppliers, length);
+	}
+}
@@ -0,0 +1,129 @@
+package software.bernie.geckolib3.core.molang;
+
+import it.unimi.dsi.fastutil.objects.Object2ObjectLinkedOpenHashMap;
+import software.bernie.geckolib3.core.molang.expressions.MolangExpression;
+
+/**
+ * Thread-safe cache of parsed Molang expressions by normalized source, used by
+ * {@link MolangParser} so identical expressions share one instance. Expressions
+ * are kept in access order, and the least recently used one is evicted once the
+ * cache holds more than its maximum size.<br>
+ * Cached expressions are shared by everything that parsed the same source, so
+ * they must not be modified.
+ */
+public class MolangExpressionCache {
+	public static final int DEFAULT_MAXIMUM_SIZE = 8192;
+
+	private final Object2ObjectLinkedOpenHashMap<String, MolangExpression> expressions =
+			new Object2ObjectLinkedOpenHashMap<>();
+	private final int maximumSize;
+	private long hits;
+	private long misses;
+	private long evictions;
+
+	public MolangExpressionCache() {
+		this(DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * @param maximumSize How many expressions to keep at most
+	 */
+	public MolangExpressionCache(int maximumSize) {
+		if (maximumSize < 1)
+			throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+
+		this.maximumSize = maximumSize;
+	}
+
+	/**
+	 * Gets the expression parsed from the given normalized source, or null if it
+	 * isn't cached
+	 */
+	public synchronized MolangExpression get(String normalizedSource) {
+		MolangExpression expression = this.expressions.getAndMoveToLast(normalizedSource);
+
+		if (expression != null) {
+			this.hits++;
+		}
+		else {
+			this.misses++;
+		}
+
+		return expression;
+	}
+
+	/**
+	 * Caches an expression, unless one was cached for the same source in the
+	 * meantime
+	 *
+	 * @return the expression that is now cached for the source
+	 */
+	public synchronized MolangExpression putIfAbsent(String normalizedSource, MolangExpression expression) {
+		MolangExpression cached = this.expressions.getAndMoveToLast(normalizedSource);
+
+		if (cached != null)
+			return cached;
+
+		this.expressions.putAndMoveToLast(normalizedSource, expression);
+
+		while (this.expressions.size() > this.maximumSize) {
+			this.expressions.removeFirst();
+			this.evictions++;
+		}
+
+		return expression;
+	}
+
+	public synchronized void invalidateAll() {
+		this.expressions.clear();
+	}
+
+	public synchronized int size() {
+		return this.expressions.size();
+	}
+
+	public synchronized MolangExpressionCacheStats getStats() {
+		return new MolangExpressionCacheStats(this.hits, this.misses, this.evictions, this.expressions.size());
+	}
+
+	/**
+	 * Normalizes the source of an expression the same way the parser reads it:
+	 * lower case, without empty statements or whitespace around statements, and
+	 * with any other whitespace collapsed to single spaces
+	 */
+	public static String normalize(String source) {
+		String lowerCase = source.toLowerCase();
+		StringBuilder builder = new StringBuilder(lowerCase.length());
+		boolean pendingSpace = false;
+
+		for (int i = 0; i < lowerCase.length(); i++) {
+			char c = lowerCase.charAt(i);
+
+			if (Character.isWhitespace(c)) {
+				pendingSpace = true;
+
+				continue;
+			}
+
+			boolean statementStart = builder.length() == 0 || builder.charAt(builder.length() - 1) == ';';
+
+			if (c == ';') {
+				if (!statementStart)
+					builder.append(';');
+			}
+			else {
+				if (pendingSpace && !statementStart)
+					builder.append(' ');
+
+				builder.append(c);
+			}
+
+			pendingSpace = false;
+		}
+
+		if (builder.length() > 0 && builder.charAt(builder.length() - 1) == ';')
+			builder.setLength(builder.length() - 1);
+
+		return builder.toString();
+	}
+}
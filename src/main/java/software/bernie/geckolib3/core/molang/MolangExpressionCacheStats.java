@@ -0,0 +1,22 @@
+package software.bernie.geckolib3.core.molang;
+
+/**
+ * Counters of a {@link MolangExpressionCache}.
+ *
+ * @param hits      The amount of parses that returned a cached expression
+ * @param misses    The amount of parses that had to build a new expression
+ * @param evictions The amount of expressions evicted for being over the
+ *                  maximum size
+ * @param size      The amount of expressions currently cached
+ */
+public record MolangExpressionCacheStats(long hits, long misses, long evictions, int size) {
+	/**
+	 * Gets the fraction of parses that returned a cached expression, or 1 if there
+	 * weren't any
+	 */
+	public double hitRate() {
+		long lookups = this.hits + this.misses;
+
+		return lookups == 0 ? 1 : this.hits / (double) lookups;
+	}
+}
@@ -0,0 +1,105 @@
+package software.bernie.geckolib3.core.molang;
+
+import com.eliotlash.mclib.math.Group;
+import com.eliotlash.mclib.math.IValue;
+import com.eliotlash.mclib.math.functions.Function;
+import software.bernie.geckolib3.core.molang.functions.CosDegrees;
+import software.bernie.geckolib3.core.molang.functions.SinDegrees;
+
+import java.lang.reflect.Field;
+import java.util.Set;
+
+/**
+ * Access to the parts of mclib's value nodes it doesn't expose, for the
+ * passes that look inside parsed expressions
+ */
+final class MolangNodes {
+	private static final Field GROUP_VALUE = findField(Group.class, "value");
+	private static final Field FUNCTION_ARGS = findField(Function.class, "args");
+	private static final String MCLIB_FUNCTIONS = "com.eliotlash.mclib.math.functions.";
+	// mclib functions that always give the same result for the same arguments
+	private static final Set<String> PURE_FUNCTIONS = Set.of("math.abs", "math.acos", "math.asin", "math.atan",
+			"math.atan2", "math.ceil", "math.clamp", "math.exp", "math.floor", "math.hermite_blend", "math.lerp",
+			"math.lerprotate", "math.ln", "math.max", "math.min", "math.mod", "math.pow", "math.round", "math.sqrt",
+			"math.trunc");
+
+	private MolangNodes() {
+	}
+
+	/**
+	 * Gets the value inside parentheses, or null if it can't be read
+	 */
+	static IValue getGroupValue(Group group) {
+		return (IValue)get(GROUP_VALUE, group);
+	}
+
+	/**
+	 * Gets the arguments of a function, or null if they can't be read. The array
+	 * is the function's own, changing it changes the function.
+	 */
+	static IValue[] getFunctionArgs(Function function) {
+		return (IValue[])get(FUNCTION_ARGS, function);
+	}
+
+	/**
+	 * Creates a function of the same type and name as the given one with other
+	 * arguments, the same way the parser creates them. Parsed expressions can be
+	 * shared, so their functions' arguments must not be changed in place.
+	 *
+	 * @return the new function, or null if it can't be created
+	 */
+	static Function withArgs(Function function, IValue[] args) {
+		try {
+			return function.getClass().getConstructor(IValue[].class, String.class).newInstance(args,
+					function.getName());
+		}
+		catch (Exception e) {
+			return null;
+		}
+	}
+
+	/**
+	 * Checks if a function is one of mclib's, or one of the degree-based
+	 * replacements, rather than something registered by a mod
+	 */
+	static boolean isBuiltInFunction(Function function) {
+		Class<?> type = function.getClass();
+
+		return type == SinDegrees.class || type == CosDegrees.class || type.getName().startsWith(MCLIB_FUNCTIONS);
+	}
+
+	/**
+	 * Checks if a function always gives the same result for the same arguments
+	 */
+	static boolean isPureFunction(Function function) {
+		Class<?> type = function.getClass();
+
+		return type == SinDegrees.class || type == CosDegrees.class
+				|| isBuiltInFunction(function) && PURE_FUNCTIONS.contains(function.getName());
+	}
+
+	private static Object get(Field field, Object owner) {
+		if (field == null)
+			return null;
+
+		try {
+			return field.get(owner);
+		}
+		catch (IllegalAccessException e) {
+			return null;
+		}
+	}
+
+	private static Field findField(Class<?> owner, String name) {
+		try {
+			Field field = owner.getDeclaredField(name);
+
+			field.setAccessible(true);
+
+			return field;
+		}
+		catch (ReflectiveOperationException | RuntimeException e) {
+			return null;
+		}
+	}
+}
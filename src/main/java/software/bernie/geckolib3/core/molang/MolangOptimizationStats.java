@@ -0,0 +1,24 @@
+package software.bernie.geckolib3.core.molang;
+
+/**
+ * The result of running {@link MolangOptimizer} on one or more expressions.
+ *
+ * @param nodesBefore   The amount of nodes in the expressions as parsed
+ * @param nodesAfter    The amount of nodes left after optimizing
+ * @param hoistedCount  The amount of repeated subexpressions moved into locals
+ */
+public record MolangOptimizationStats(int nodesBefore, int nodesAfter, int hoistedCount) {
+	public static final MolangOptimizationStats EMPTY = new MolangOptimizationStats(0, 0, 0);
+
+	public int removedNodes() {
+		return this.nodesBefore - this.nodesAfter;
+	}
+
+	/**
+	 * Adds the counts of another optimization to these
+	 */
+	public MolangOptimizationStats add(MolangOptimizationStats other) {
+		return new MolangOptimizationStats(this.nodesBefore + other.nodesBefore, this.nodesAfter + other.nodesAfter,
+				this.hoistedCount + other.hoistedCount);
+	}
+}
@@ -0,0 +1,561 @@
+package software.bernie.geckolib3.core.molang;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.mclib.math.Group;
+import com.eliotlash.mclib.math.IValue;
+import com.eliotlash.mclib.math.Negate;
+import com.eliotlash.mclib.math.Negative;
+import com.eliotlash.mclib.math.Operation;
+import com.eliotlash.mclib.math.Operator;
+import com.eliotlash.mclib.math.Ternary;
+import com.eliotlash.mclib.math.Variable;
+import com.eliotlash.mclib.math.functions.Function;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntMap;
+import it.unimi.dsi.fastutil.objects.Reference2IntOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ReferenceOpenHashSet;
+import software.bernie.geckolib3.core.molang.expressions.MolangAssignment;
+import software.bernie.geckolib3.core.molang.expressions.MolangExpression;
+import software.bernie.geckolib3.core.molang.expressions.MolangMultiStatement;
+import software.bernie.geckolib3.core.molang.expressions.MolangValue;
+
+import java.util.List;
+import java.util.Set;
+import java.util.StringJoiner;
+
+/**
+ * Simplifies parsed Molang expressions, so work that gives the same result every
+ * time isn't redone every frame:
+ * <ul>
+ * <li>Subexpressions made of constants and pure functions are folded into one
+ * constant, and ternaries with a constant condition into the taken branch</li>
+ * <li>Parentheses and identity operations such as {@code x * 1} or {@code x + 0}
+ * are removed</li>
+ * <li>{@code x ^ 2} and {@code math.pow(x, 2)} become {@code x * x}</li>
+ * <li>Subexpressions repeated across the statements of an expression are
+ * evaluated once into a local at the start, as long as nothing the expression
+ * assigns can change them</li>
+ * </ul>
+ * Optimized expressions always give the same results as the original ones.
+ */
+public final class MolangOptimizer {
+	// Reading a local costs about as much as evaluating anything smaller
+	private static final int MIN_HOISTED_NODES = 3;
+	// Can't be written in Molang source, so it never clashes with the expression's own locals
+	private static final String HOISTED_PREFIX = "temp.#hoisted_";
+	private static final Constant TAKEN = new Constant(1);
+	private static final Constant NOT_TAKEN = new Constant(0);
+
+	private MolangOptimizer() {
+	}
+
+	/**
+	 * Optimizes the statements of an expression in place
+	 *
+	 * @return the node counts before and after
+	 */
+	public static MolangOptimizationStats optimize(MolangMultiStatement statement) {
+		int nodesBefore = countNodes(statement);
+		List<MolangExpression> expressions = statement.expressions;
+
+		for (int i = 0; i < expressions.size(); i++) {
+			expressions.set(i, simplifyExpression(expressions.get(i)));
+		}
+
+		int hoistedCount = new Hoister(statement).hoist();
+
+		return new MolangOptimizationStats(nodesBefore, countNodes(statement), hoistedCount);
+	}
+
+	/**
+	 * Counts the nodes of an expression, including the statement and value
+	 * wrappers
+	 */
+	public static int countNodes(IValue value) {
+		if (value instanceof MolangMultiStatement multiStatement) {
+			int count = 1;
+
+			for (MolangExpression expression : multiStatement.expressions) {
+				count += countNodes(expression);
+			}
+
+			return count;
+		}
+
+		if (value instanceof MolangValue molangValue)
+			return 1 + countNodes(molangValue.value);
+
+		if (value instanceof MolangAssignment assignment)
+			return 1 + countNodes(assignment.expression);
+
+		if (value instanceof Group group) {
+			IValue child = MolangNodes.getGroupValue(group);
+
+			return child == null ? 1 : 1 + countNodes(child);
+		}
+
+		if (value instanceof Negative negative)
+			return 1 + countNodes(negative.value);
+
+		if (value instanceof Negate negate)
+			return 1 + countNodes(negate.value);
+
+		if (value instanceof Operator operator)
+			return 1 + countNodes(operator.a) + countNodes(operator.b);
+
+		if (value instanceof Ternary ternary)
+			return 1 + countNodes(ternary.condition) + countNodes(ternary.ifTrue) + countNodes(ternary.ifFalse);
+
+		if (value instanceof Function function) {
+			IValue[] args = MolangNodes.getFunctionArgs(function);
+			int count = 1;
+
+			if (args != null) {
+				for (IValue arg : args) {
+					count += countNodes(arg);
+				}
+			}
+
+			return count;
+		}
+
+		return 1;
+	}
+
+	private static MolangExpression simplifyExpression(MolangExpression expression) {
+		if (expression instanceof MolangValue value)
+			return withValue(value, simplify(value.value));
+
+		if (expression instanceof MolangAssignment assignment)
+			return withValue(assignment, simplify(assignment.expression));
+
+		return expression;
+	}
+
+	private static IValue simplify(IValue value) {
+		if (value instanceof MolangExpression expression)
+			return simplifyExpression(expression);
+
+		if (value instanceof Group group) {
+			IValue child = MolangNodes.getGroupValue(group);
+
+			return child == null ? value : simplify(child);
+		}
+
+		if (value instanceof Negative negative) {
+			IValue child = simplify(negative.value);
+
+			return child instanceof Constant ? new Constant(-child.get()) : new Negative(child);
+		}
+
+		if (value instanceof Negate negate) {
+			Negate simplified = new Negate(simplify(negate.value));
+
+			return simplified.value instanceof Constant ? new Constant(simplified.get()) : simplified;
+		}
+
+		if (value instanceof Ternary ternary) {
+			IValue condition = simplify(ternary.condition);
+
+			// Let mclib pick the branch, so it's decided the same way as when evaluated
+			if (condition instanceof Constant) {
+				boolean taken = new Ternary(condition, TAKEN, NOT_TAKEN).get() == TAKEN.get();
+
+				return simplify(taken ? ternary.ifTrue : ternary.ifFalse);
+			}
+
+			return new Ternary(condition, simplify(ternary.ifTrue), simplify(ternary.ifFalse));
+		}
+
+		if (value instanceof Operator operator)
+			return simplifyOperator(operator);
+
+		if (value instanceof Function function)
+			return simplifyFunction(function);
+
+		return value;
+	}
+
+	private static IValue simplifyOperator(Operator operator) {
+		Operation operation = operator.operation;
+		IValue a = simplify(operator.a);
+		IValue b = simplify(operator.b);
+
+		if (a instanceof Constant && b instanceof Constant)
+			return new Constant(operation.calculate(a.get(), b.get()));
+
+		switch (operation) {
+			case ADD:
+				if (isConstant(a, 0))
+					return b;
+				if (isConstant(b, 0))
+					return a;
+				break;
+			case SUB:
+				if (isConstant(b, 0))
+					return a;
+				break;
+			case MUL:
+				if (isConstant(a, 1))
+					return b;
+				if (isConstant(b, 1))
+					return a;
+				break;
+			case DIV:
+				if (isConstant(b, 1))
+					return a;
+				break;
+			case POW:
+				return simplifyPower(operator, a, b);
+			default:
+				break;
+		}
+
+		return new Operator(operation, a, b);
+	}
+
+	private static IValue simplifyFunction(Function function) {
+		IValue[] args = MolangNodes.getFunctionArgs(function);
+
+		if (args == null)
+			return function;
+
+		IValue[] simplifiedArgs = new IValue[args.length];
+		boolean changed = false;
+		boolean constantArgs = true;
+
+		for (int i = 0; i < args.length; i++) {
+			simplifiedArgs[i] = simplify(args[i]);
+			changed |= simplifiedArgs[i] != args[i];
+			constantArgs &= simplifiedArgs[i] instanceof Constant;
+		}
+
+		// The function may be shared, so it gets a copy with the new arguments
+		Function simplified = changed ? MolangNodes.withArgs(function, simplifiedArgs) : function;
+
+		if (simplified == null)
+			return function;
+
+		if (constantArgs && MolangNodes.isPureFunction(simplified))
+			return new Constant(simplified.get());
+
+		if (MolangNodes.isBuiltInFunction(simplified) && simplified.getName().equals("math.pow")
+				&& simplifiedArgs.length == 2)
+			return simplifyPower(simplified, simplifiedArgs[0], simplifiedArgs[1]);
+
+		return simplified;
+	}
+
+	private static IValue simplifyPower(IValue power, IValue base, IValue exponent) {
+		if (isConstant(exponent, 1))
+			return base;
+
+		// The base is evaluated twice, so only do this when that's cheap
+		if (isConstant(exponent, 2) && (base instanceof Variable || base instanceof Constant))
+			return new Operator(Operation.MUL, base, base);
+
+		return power instanceof Operator ? new Operator(Operation.POW, base, exponent) : power;
+	}
+
+	private static boolean isConstant(IValue value, double x) {
+		return value instanceof Constant && value.get() == x;
+	}
+
+	// Copies a statement with a new value, keeping everything else the same
+	private static MolangExpression withValue(MolangExpression expression, IValue value) {
+		if (expression instanceof MolangAssignment assignment) {
+			return value == assignment.expression ? assignment
+					: new MolangAssignment(assignment.context, assignment.variable, value);
+		}
+
+		MolangValue original = (MolangValue)expression;
+
+		if (value == original.value)
+			return original;
+
+		MolangValue copy = new MolangValue(original.context, value);
+
+		return original.returns ? copy.addReturn() : copy;
+	}
+
+	/**
+	 * Moves subexpressions that are repeated across an expression's statements
+	 * into locals, biggest first
+	 */
+	private static class Hoister {
+		private final MolangMultiStatement statement;
+		// Variables the expression assigns, anything reading them may change between statements
+		private final Set<Variable> assigned = new ReferenceOpenHashSet<>();
+		private final Reference2IntMap<Variable> variableIds = new Reference2IntOpenHashMap<>();
+		private final Object2IntMap<String> occurrences = new Object2IntOpenHashMap<>();
+		private final Object2IntMap<String> sizes = new Object2IntOpenHashMap<>();
+		private int hoistedCount;
+		private boolean hasUnknownNodes;
+
+		private Hoister(MolangMultiStatement statement) {
+			this.statement = statement;
+			this.variableIds.defaultReturnValue(-1);
+
+			for (MolangExpression expression : statement.expressions) {
+				if (expression instanceof MolangAssignment assignment)
+					this.assigned.add(assignment.variable);
+			}
+		}
+
+		private int hoist() {
+			List<MolangExpression> expressions = this.statement.expressions;
+
+			while (true) {
+				this.occurrences.clear();
+				this.sizes.clear();
+
+				// Hoisted locals are assigned at the start and skipped, so later ones can use
+				// earlier ones
+				for (int i = this.hoistedCount; i < expressions.size(); i++) {
+					MolangExpression expression = expressions.get(i);
+
+					if (expression instanceof MolangValue molangValue) {
+						collect(molangValue.value, false);
+					}
+					else if (expression instanceof MolangAssignment assignment) {
+						collect(assignment.expression, false);
+					}
+					else {
+						this.hasUnknownNodes = true;
+					}
+				}
+
+				// Something unknown could assign variables behind the expression's back
+				if (this.hasUnknownNodes)
+					return this.hoistedCount;
+
+				String best = null;
+
+				for (Object2IntMap.Entry<String> entry : this.occurrences.object2IntEntrySet()) {
+					if (entry.getIntValue() >= 2
+							&& (best == null || this.sizes.getInt(entry.getKey()) > this.sizes.getInt(best)))
+						best = entry.getKey();
+				}
+
+				if (best == null)
+					return this.hoistedCount;
+
+				LazyVariable local = createLocal();
+				IValue hoisted = null;
+
+				for (int i = this.hoistedCount; i < expressions.size(); i++) {
+					MolangExpression expression = expressions.get(i);
+					IValue value = expression instanceof MolangValue molangValue ? molangValue.value
+							: ((MolangAssignment)expression).expression;
+
+					if (hoisted == null)
+						hoisted = find(value, best);
+
+					expressions.set(i, withValue(expression, replace(value, best, local)));
+				}
+
+				expressions.add(this.hoistedCount++,
+						new MolangAssignment(this.statement.context, local, hoisted));
+			}
+		}
+
+		private LazyVariable createLocal() {
+			String name;
+			int index = 0;
+
+			do {
+				name = HOISTED_PREFIX + index++;
+			}
+			while (this.statement.locals.containsKey(name) || MolangParser.VARIABLES.containsKey(name));
+
+			return this.statement.addLocal(name);
+		}
+
+		// Counts every subexpression that could be hoisted. Ones only evaluated in a
+		// ternary branch aren't counted, hoisting them would evaluate them every time
+		private void collect(IValue value, boolean inBranch) {
+			String key = key(value);
+
+			if (key != null && !inBranch) {
+				int size = countNodes(value);
+
+				if (size >= MIN_HOISTED_NODES) {
+					this.occurrences.mergeInt(key, 1, Integer::sum);
+					this.sizes.put(key, size);
+				}
+			}
+
+			if (value instanceof Negative negative) {
+				collect(negative.value, inBranch);
+			}
+			else if (value instanceof Negate negate) {
+				collect(negate.value, inBranch);
+			}
+			else if (value instanceof Operator operator) {
+				collect(operator.a, inBranch);
+				collect(operator.b, inBranch);
+			}
+			else if (value instanceof Ternary ternary) {
+				collect(ternary.condition, inBranch);
+				collect(ternary.ifTrue, true);
+				collect(ternary.ifFalse, true);
+			}
+			else if (value instanceof Function function && MolangNodes.isBuiltInFunction(function)
+					&& MolangNodes.getFunctionArgs(function) != null) {
+				for (IValue arg : MolangNodes.getFunctionArgs(function)) {
+					collect(arg, inBranch);
+				}
+			}
+			else if (!(value instanceof Constant || value instanceof Variable)) {
+				this.hasUnknownNodes = true;
+			}
+		}
+
+		/**
+		 * Describes a subexpression, so equal ones have the same key
+		 *
+		 * @return the key, or null if the subexpression can't be hoisted
+		 */
+		private String key(IValue value) {
+			if (value instanceof Constant)
+				return Double.toString(value.get());
+
+			if (value instanceof Variable variable) {
+				if (this.assigned.contains(value))
+					return null;
+
+				int id = this.variableIds.getInt(value);
+
+				if (id < 0)
+					this.variableIds.put(variable, id = this.variableIds.size());
+
+				return "$" + id;
+			}
+
+			if (value instanceof Negative negative) {
+				String child = key(negative.value);
+
+				return child == null ? null : "-(" + child + ")";
+			}
+
+			if (value instanceof Negate negate) {
+				String child = key(negate.value);
+
+				return child == null ? null : "!(" + child + ")";
+			}
+
+			if (value instanceof Operator operator) {
+				String a = key(operator.a);
+				String b = a == null ? null : key(operator.b);
+
+				return b == null ? null : "(" + a + operator.operation.sign + b + ")";
+			}
+
+			if (value instanceof Ternary ternary) {
+				String condition = key(ternary.condition);
+				String ifTrue = condition == null ? null : key(ternary.ifTrue);
+				String ifFalse = ifTrue == null ? null : key(ternary.ifFalse);
+
+				return ifFalse == null ? null : "(" + condition + "?" + ifTrue + ":" + ifFalse + ")";
+			}
+
+			if (value instanceof Function function && MolangNodes.isPureFunction(function)) {
+				IValue[] args = MolangNodes.getFunctionArgs(function);
+
+				if (args == null)
+					return null;
+
+				StringJoiner joiner = new StringJoiner(",", function.getName() + "(", ")");
+
+				for (IValue arg : args) {
+					String argKey = key(arg);
+
+					if (argKey == null)
+						return null;
+
+					joiner.add(argKey);
+				}
+
+				return joiner.toString();
+			}
+
+			return null;
+		}
+
+		private IValue find(IValue value, String key) {
+			if (key.equals(key(value)))
+				return value;
+
+			for (IValue child : children(value)) {
+				IValue found = find(child, key);
+
+				if (found != null)
+					return found;
+			}
+
+			return null;
+		}
+
+		// Replaces every occurrence of the subexpression, including in ternary branches
+		private IValue replace(IValue value, String key, LazyVariable local) {
+			if (key.equals(key(value)))
+				return local;
+
+			if (value instanceof Negative negative)
+				return new Negative(replace(negative.value, key, local));
+
+			if (value instanceof Negate negate)
+				return new Negate(replace(negate.value, key, local));
+
+			if (value instanceof Operator operator) {
+				return new Operator(operator.operation, replace(operator.a, key, local),
+						replace(operator.b, key, local));
+			}
+
+			if (value instanceof Ternary ternary) {
+				return new Ternary(replace(ternary.condition, key, local), replace(ternary.ifTrue, key, local),
+						replace(ternary.ifFalse, key, local));
+			}
+
+			if (value instanceof Function function) {
+				IValue[] args = MolangNodes.getFunctionArgs(function);
+
+				if (args == null)
+					return value;
+
+				IValue[] replacedArgs = new IValue[args.length];
+
+				for (int i = 0; i < args.length; i++) {
+					replacedArgs[i] = replace(args[i], key, local);
+				}
+
+				// Leaving the function as it is still gives the same result
+				Function replaced = MolangNodes.withArgs(function, replacedArgs);
+
+				return replaced == null ? function : replaced;
+			}
+
+			return value;
+		}
+
+		private static IValue[] children(IValue value) {
+			if (value instanceof Negative negative)
+				return new IValue[] {negative.value};
+
+			if (value instanceof Negate negate)
+				return new IValue[] {negate.value};
+
+			if (value instanceof Operator operator)
+				return new IValue[] {operator.a, operator.b};
+
+			if (value instanceof Ternary ternary)
+				return new IValue[] {ternary.condition, ternary.ifTrue, ternary.ifFalse};
+
+			if (value instanceof Function function)
+				return MolangNodes.getFunctionArgs(function);
+
+			return new IValue[0];
+		}
+	}
+}
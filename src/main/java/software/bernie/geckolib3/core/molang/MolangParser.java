@@ -6,7 +6,6 @@ import com.eliotlash.mclib.math.MathBuilder;
 import com.eliotlash.mclib.math.Variable;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonPrimitive;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import software.bernie.geckolib3.core.molang.expressions.MolangAssignment;
 import software.bernie.geckolib3.core.molang.expressions.MolangExpression;
 import software.bernie.geckolib3.core.molang.expressions.MolangMultiStatement;
@@ -16,6 +15,7 @@ import software.bernie.geckolib3.core.molang.functions.SinDegrees;
 
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.DoubleSupplier;
 
 /**
@@ -24,20 +24,90 @@ import java.util.function.DoubleSupplier;
  * https://bedrock.dev/docs/1.19.0.0/1.19.30.23/Molang#Math%20Functions
  */
 public class MolangParser extends MathBuilder {
-	// Replace base variables map
-	public static final Map<String, LazyVariable> VARIABLES = new Object2ObjectOpenHashMap<>();
+	// Replace base variables map. Only maps names to variables, the values can be
+	// confined to a thread with a MolangContext
+	public static final Map<String, LazyVariable> VARIABLES = new ConcurrentHashMap<>();
 	public static final MolangExpression ZERO = new MolangValue(null, new Constant(0));
 	public static final MolangExpression ONE = new MolangValue(null, new Constant(1));
 	public static final String RETURN = "return ";
+	// The statement being parsed, so reads of its locals resolve to them. Per thread,
+	// as a parser may be shared by loaders running in parallel
+	private static final ThreadLocal<MolangMultiStatement> PARSING_STATEMENT = new ThreadLocal<>();
+
+	private boolean compileExpressions = false;
+	private boolean optimizeExpressions = false;
+	private MolangOptimizationStats optimizationStats = MolangOptimizationStats.EMPTY;
+	private final MolangExpressionCache expressionCache;
 
 	public MolangParser() {
+		this(new MolangExpressionCache());
+	}
+
+	/**
+	 * @param expressionCache The cache parsed expressions are shared through, or
+	 *                        null to parse every expression separately
+	 */
+	public MolangParser(MolangExpressionCache expressionCache) {
 		super();
 
+		this.expressionCache = expressionCache;
+
 		// Remap functions to be intact with Molang specification
 		doCoreRemaps();
 		registerAdditionalVariables();
 	}
 
+	/**
+	 * Sets whether expressions parsed from now on are compiled to bytecode with
+	 * {@link MolangCompiler}. Expressions that can't be compiled are interpreted
+	 * the same as when this is off.
+	 */
+	public void setCompileExpressions(boolean compileExpressions) {
+		this.compileExpressions = compileExpressions;
+
+		invalidateExpressionCache();
+	}
+
+	public boolean isCompileExpressions() {
+		return this.compileExpressions;
+	}
+
+	/**
+	 * Sets whether expressions parsed from now on are simplified with
+	 * {@link MolangOptimizer}. This changes what the expressions print as, but
+	 * not what they evaluate to.
+	 */
+	public void setOptimizeExpressions(boolean optimizeExpressions) {
+		this.optimizeExpressions = optimizeExpressions;
+
+		invalidateExpressionCache();
+	}
+
+	public boolean isOptimizeExpressions() {
+		return this.optimizeExpressions;
+	}
+
+	/**
+	 * Gets the cache parsed expressions are shared through, or null if this parser
+	 * doesn't cache them
+	 */
+	public MolangExpressionCache getExpressionCache() {
+		return this.expressionCache;
+	}
+
+	// Expressions parsed with other settings can't be reused
+	private void invalidateExpressionCache() {
+		if (this.expressionCache != null)
+			this.expressionCache.invalidateAll();
+	}
+
+	/**
+	 * Gets the node counts of every expression this parser has optimized, summed
+	 */
+	public MolangOptimizationStats getOptimizationStats() {
+		return this.optimizationStats;
+	}
+
 	private void doCoreRemaps() {
 		// Replace radian based sin and cos with degree-based functions
 		this.functions.put("cos", CosDegrees.class);
@@ -87,12 +157,19 @@ public class MolangParser extends MathBuilder {
 		register(new LazyVariable("query.ground_speed", 0));
 	}
 
+	/**
+	 * Registers a variable. If one with the same name already exists, it keeps its
+	 * slot and takes the new one's value, so expressions that were already parsed
+	 * still use it.
+	 */
 	@Override
 	public void register(Variable variable) {
-		if (!(variable instanceof LazyVariable))
-			variable = LazyVariable.from(variable);
+		LazyVariable lazyVariable = variable instanceof LazyVariable ? (LazyVariable)variable
+				: LazyVariable.from(variable);
+		LazyVariable registered = VARIABLES.computeIfAbsent(variable.getName(), key -> withSlot(lazyVariable));
 
-		VARIABLES.put(variable.getName(), (LazyVariable)variable);
+		if (registered != lazyVariable)
+			registered.setSharedValue(lazyVariable);
 	}
 
 	/**
@@ -103,11 +180,14 @@ public class MolangParser extends MathBuilder {
 	}
 
 	/**
-	 * Deprecated, use {@link MolangParser#setValue(String, DoubleSupplier)}
+	 * Deprecated, use {@link MolangParser#setValue(String, DoubleSupplier)}, or
+	 * {@link MolangParser#getSlot(String)} and
+	 * {@link MolangContext#setValue(int, double)} to set values without looking
+	 * the name up every time
 	 */
 	@Deprecated(forRemoval = true)
 	public void setValue(String name, double value) {
-		setValue(name, () -> value);
+		getVariable(name).set(value);
 	}
 
 	public void setValue(String name, DoubleSupplier value) {
@@ -117,9 +197,54 @@ public class MolangParser extends MathBuilder {
 			variable.set(value);
 	}
 
+	/**
+	 * Sets the value of a variable in the given context only, leaving its value for
+	 * every other animatable untouched
+	 */
+	public void setValue(MolangContext context, String name, DoubleSupplier value) {
+		context.setValue(getVariable(name), value);
+	}
+
+	/**
+	 * Sets the value of a variable in the given context only, leaving its value for
+	 * every other animatable untouched
+	 */
+	public void setValue(MolangContext context, String name, double value) {
+		context.setValue(getVariable(name), value);
+	}
+
+	/**
+	 * Gets the slot of a variable, creating the variable if it doesn't exist yet.
+	 * Values can then be set with {@link MolangContext#setValue(int, double)}
+	 * without looking the name up every time.
+	 */
+	public int getSlot(String name) {
+		return getVariable(name).getSlot();
+	}
+
 	@Override
 	protected LazyVariable getVariable(String name) {
-		return VARIABLES.computeIfAbsent(name, key -> new LazyVariable(key, 0));
+		MolangMultiStatement statement = PARSING_STATEMENT.get();
+
+		if (statement != null) {
+			LazyVariable local = statement.locals.get(name);
+
+			if (local != null)
+				return local;
+		}
+
+		return getSharedVariable(name);
+	}
+
+	private static LazyVariable getSharedVariable(String name) {
+		return VARIABLES.computeIfAbsent(name, key -> withSlot(new LazyVariable(key, 0)));
+	}
+
+	// Gives a variable its slot as it is added to the registry
+	private static LazyVariable withSlot(LazyVariable variable) {
+		variable.getSlot();
+
+		return variable;
 	}
 
 	public LazyVariable getVariable(String name, MolangMultiStatement currentStatement) {
@@ -132,7 +257,7 @@ public class MolangParser extends MathBuilder {
 				return variable;
 		}
 
-		return getVariable(name);
+		return getSharedVariable(name);
 	}
 
 	public MolangExpression parseJson(JsonElement element) throws MolangException {
@@ -159,21 +284,53 @@ public class MolangParser extends MathBuilder {
 	}
 
 	/**
-	 * Parse a molang expression
+	 * Parse a molang expression. Identical expressions are shared through the
+	 * parser's {@link MolangExpressionCache}, so the result must not be modified.
+	 * This includes expressions with locals: evaluated with a
+	 * {@link MolangContext}, each evaluation keeps its locals in a frame of its own.
 	 */
 	public MolangExpression parseExpression(String expression) throws MolangException {
+		String normalizedSource = this.expressionCache == null ? null : MolangExpressionCache.normalize(expression);
+
+		if (normalizedSource != null) {
+			MolangExpression cached = this.expressionCache.get(normalizedSource);
+
+			if (cached != null)
+				return cached;
+		}
+
+		MolangMultiStatement result = parseStatements(expression);
+
+		if (this.optimizeExpressions)
+			this.optimizationStats = this.optimizationStats.add(MolangOptimizer.optimize(result));
+
+		if (this.compileExpressions)
+			result.compile();
+
+		return normalizedSource != null ? this.expressionCache.putIfAbsent(normalizedSource, result) : result;
+	}
+
+	private MolangMultiStatement parseStatements(String expression) throws MolangException {
 		MolangMultiStatement result = null;
 
-		for (String split : expression.toLowerCase().trim().split(";")) {
-			String trimmed = split.trim();
+		try {
+			for (String split : expression.toLowerCase().trim().split(";")) {
+				String trimmed = split.trim();
+
+				if (!trimmed.isEmpty()) {
+					if (result == null) {
+						result = new MolangMultiStatement(this);
 
-			if (!trimmed.isEmpty()) {
-				if (result == null)
-					result = new MolangMultiStatement(this);
+						PARSING_STATEMENT.set(result);
+					}
 
-				result.expressions.add(parseOneLine(trimmed, result));
+					result.expressions.add(parseOneLine(trimmed, result));
+				}
 			}
 		}
+		finally {
+			PARSING_STATEMENT.remove();
+		}
 
 		if (result == null)
 			throw new MolangException("Molang expression cannot be blank!");
@@ -204,7 +361,7 @@ public class MolangParser extends MathBuilder {
 				LazyVariable variable;
 
 				if (!VARIABLES.containsKey(name) && !currentStatement.locals.containsKey(name)) {
-					currentStatement.locals.put(name, (variable = new LazyVariable(name, 0)));
+					variable = currentStatement.addLocal(name);
 				}
 				else {
 					variable = getVariable(name, currentStatement);
@@ -6,8 +6,8 @@ import com.eliotlash.mclib.math.Variable;
 import software.bernie.geckolib3.core.molang.MolangParser;
 
 public class MolangAssignment extends MolangExpression {
-	public Variable variable;
-	public IValue expression;
+	public final Variable variable;
+	public final IValue expression;
 
 	public MolangAssignment(MolangParser context, Variable variable, IValue expression) {
 		super(context);
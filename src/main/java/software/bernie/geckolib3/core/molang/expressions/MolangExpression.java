@@ -6,10 +6,11 @@ import com.eliotlash.mclib.math.Operation;
 import com.google.gson.JsonElement;
 import com.google.gson.JsonPrimitive;
 
+import software.bernie.geckolib3.core.molang.MolangContext;
 import software.bernie.geckolib3.core.molang.MolangParser;
 
 public abstract class MolangExpression implements IValue {
-	public MolangParser context;
+	public final MolangParser context;
 
 	public static boolean isZero(MolangExpression expression) {
 		return isConstant(expression, 0);
@@ -34,6 +35,12 @@ public abstract class MolangExpression implements IValue {
 			return value.value instanceof Constant;
 		}
 
+		if (expression instanceof MolangMultiStatement) {
+			MolangMultiStatement statement = (MolangMultiStatement) expression;
+			return statement.expressions.size() == 1 && statement.locals.isEmpty()
+					&& isExpressionConstant(statement.expressions.get(0));
+		}
+
 		return false;
 	}
 
@@ -41,6 +48,22 @@ public abstract class MolangExpression implements IValue {
 		this.context = context;
 	}
 
+	/**
+	 * Evaluates this expression with the given context's variable values. Anything
+	 * this expression assigns is stored in the context too, so the same expression
+	 * can be evaluated for several contexts at once.
+	 */
+	public double get(MolangContext context) {
+		MolangContext previous = context.bind();
+
+		try {
+			return get();
+		}
+		finally {
+			MolangContext.restore(previous);
+		}
+	}
+
 	public JsonElement toJson() {
 		return new JsonPrimitive(this.toString());
 	}
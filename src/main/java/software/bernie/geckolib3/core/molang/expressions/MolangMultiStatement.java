@@ -2,7 +2,10 @@ package software.bernie.geckolib3.core.molang.expressions;
 
 import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import software.bernie.geckolib3.core.molang.CompiledMolangExpression;
 import software.bernie.geckolib3.core.molang.LazyVariable;
+import software.bernie.geckolib3.core.molang.MolangCompiler;
+import software.bernie.geckolib3.core.molang.MolangContext;
 import software.bernie.geckolib3.core.molang.MolangParser;
 
 import java.util.List;
@@ -12,13 +15,62 @@ import java.util.StringJoiner;
 public class MolangMultiStatement extends MolangExpression {
 	public final List<MolangExpression> expressions = new ObjectArrayList<>();
 	public final Map<String, LazyVariable> locals = new Object2ObjectOpenHashMap<>();
+	private CompiledMolangExpression compiled;
+	private int frameSize;
 
 	public MolangMultiStatement(MolangParser context) {
 		super(context);
 	}
 
+	/**
+	 * Adds a local to this expression, stored in its own frame of the
+	 * {@link MolangContext} it is evaluated with
+	 */
+	public LazyVariable addLocal(String name) {
+		LazyVariable local = LazyVariable.local(name, this.frameSize++);
+
+		this.locals.put(name, local);
+
+		return local;
+	}
+
+	/**
+	 * Compiles this expression with {@link MolangCompiler}, so it no longer has to
+	 * be interpreted. Must be called once every statement has been added.
+	 *
+	 * @return false if it couldn't be compiled, so it's still interpreted
+	 */
+	public boolean compile() {
+		this.compiled = MolangCompiler.compile(this);
+
+		return this.compiled != null;
+	}
+
+	public boolean isCompiled() {
+		return this.compiled != null;
+	}
+
 	@Override
 	public double get() {
+		MolangContext context = this.frameSize == 0 ? null : MolangContext.current();
+
+		if (context == null)
+			return evaluate();
+
+		int previousBase = context.enterFrame(this.frameSize);
+
+		try {
+			return evaluate();
+		}
+		finally {
+			context.exitFrame(previousBase);
+		}
+	}
+
+	private double evaluate() {
+		if (this.compiled != null)
+			return this.compiled.get();
+
 		double value = 0;
 
 		for (MolangExpression expression : this.expressions) {
@@ -8,7 +8,7 @@ import com.google.gson.JsonPrimitive;
 import software.bernie.geckolib3.core.molang.MolangParser;
 
 public class MolangValue extends MolangExpression {
-	public IValue value;
+	public final IValue value;
 	public boolean returns;
 
 	public MolangValue(MolangParser context, IValue value) {
@@ -1,64 +1,527 @@
 package software.bernie.geckolib3.core.processor;
 
-import it.unimi.dsi.fastutil.ints.IntOpenHashSet;
-import it.unimi.dsi.fastutil.ints.IntSet;
-import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
-import org.apache.commons.lang3.tuple.Pair;
+import software.bernie.geckolib3.core.AnimationState;
 import software.bernie.geckolib3.core.IAnimatable;
 import software.bernie.geckolib3.core.IAnimatableModel;
+import software.bernie.geckolib3.core.builder.Animation;
 import software.bernie.geckolib3.core.controller.AnimationController;
+import software.bernie.geckolib3.core.event.KeyframeEventSink;
 import software.bernie.geckolib3.core.event.predicate.AnimationEvent;
-import software.bernie.geckolib3.core.keyframe.AnimationPoint;
 import software.bernie.geckolib3.core.keyframe.BoneAnimationQueue;
 import software.bernie.geckolib3.core.manager.AnimationData;
+import software.bernie.geckolib3.core.manager.AnimationLodPolicy;
+import software.bernie.geckolib3.core.manager.ModelState;
+import software.bernie.geckolib3.core.molang.LazyVariable;
+import software.bernie.geckolib3.core.molang.MolangContext;
 import software.bernie.geckolib3.core.molang.MolangParser;
 import software.bernie.geckolib3.core.snapshot.BoneSnapshot;
-import software.bernie.geckolib3.core.snapshot.DirtyTracker;
 import software.bernie.geckolib3.core.util.MathUtil;
 
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.LongAdder;
 
 public class AnimationProcessor<T extends IAnimatable> {
 	public boolean reloadAnimations = false;
 	private final List<IBone> modelRendererList = new ObjectArrayList<>();
+	private final Object2IntMap<String> boneIndexes = new Object2IntOpenHashMap<>();
+	private int boneListRevision = 0;
 	private double lastTickValue = -1;
-	private final IntSet animatedEntities = new IntOpenHashSet();
+	private long frame = 0;
 	private final IAnimatableModel animatedModel;
+	/**
+	 * Skip writing an animatable's pose to the bones when they were last written
+	 * from the same pose and it is provably unchanged. Only enable this if nothing
+	 * else writes to the bones, since they would keep that value instead.
+	 */
+	public boolean skipRedundantBoneWrites = false;
+	private Pose lastAppliedPose;
+	// Reused by every animatable animated on the calling thread
+	private final DirtyBones dirtyBones = new DirtyBones();
+	private KeyframeEventSink keyframeEventSink;
 
 	public AnimationProcessor(IAnimatableModel animatedModel) {
 		this.animatedModel = animatedModel;
+		this.boneIndexes.defaultReturnValue(-1);
 	}
 
 	public void tickAnimation(IAnimatable entity, int uniqueID, double seekTime, AnimationEvent<T> event,
 			MolangParser parser, boolean crashWhenCantFindBone) {
-		if (seekTime != lastTickValue) {
-			animatedEntities.clear();
-		} else if (animatedEntities.contains(uniqueID)) { // Entity already animated on this tick
+		// Each animation has its own collection of animations (called the
+		// EntityAnimationManager), which allows for multiple independent animations
+		AnimationData manager = entity.getFactory().getOrCreateAnimationData(uniqueID);
+
+		if (!markAnimated(manager, seekTime)) // Entity already animated on this frame
 			return;
+
+		MolangContext context = manager.getMolangContext();
+		MolangContext previousContext = context.bind();
+		KeyframeEventSink previousSink = bindKeyframeEventSink();
+
+		// The caller set the queries on the shared variables, which values left in the
+		// context by a batch tick would hide
+		context.clearQueries();
+
+		try {
+			animate(manager, seekTime, event, parser, crashWhenCantFindBone, consumeReload(), this.dirtyBones,
+					true);
 		}
+		finally {
+			restoreKeyframeEventSink(previousSink);
+			MolangContext.restore(previousContext);
+		}
+	}
 
-		lastTickValue = seekTime;
-		animatedEntities.add(uniqueID);
+	/**
+	 * Sets the sink keyframe events fired while animating with this processor are
+	 * collected into. The sound, particle and custom instruction listeners are
+	 * then only called when {@link KeyframeEventSink#flush()} is called, which
+	 * should be done once per frame after everything has been animated.<br>
+	 * Without a sink, the listeners are called as soon as the keyframe is reached,
+	 * except for the parallel tick methods, which dispatch them once evaluation is
+	 * done.
+	 *
+	 * @param keyframeEventSink The sink, or null to call the listeners directly
+	 */
+	public void setKeyframeEventSink(KeyframeEventSink keyframeEventSink) {
+		this.keyframeEventSink = keyframeEventSink;
+	}
 
-		// Each animation has its own collection of animations (called the
-		// EntityAnimationManager), which allows for multiple independent animations
-		AnimationData manager = entity.getFactory().getOrCreateAnimationData(uniqueID);
-		// Keeps track of which bones have had animations applied to them, and
-		// eventually sets the ones that don't have an animation to their default values
-		Map<String, DirtyTracker> modelTracker = createNewDirtyTracker();
+	public KeyframeEventSink getKeyframeEventSink() {
+		return this.keyframeEventSink;
+	}
+
+	// Only touches the thread local when there's a sink, so ticking without one
+	// costs nothing extra
+	private KeyframeEventSink bindKeyframeEventSink() {
+		return this.keyframeEventSink == null ? null
+				: AnimationController.setKeyframeEventSink(this.keyframeEventSink);
+	}
+
+	private void restoreKeyframeEventSink(KeyframeEventSink previous) {
+		if (this.keyframeEventSink != null)
+			AnimationController.setKeyframeEventSink(previous);
+	}
+
+	/**
+	 * Animates a batch of animatables using this processor's model. Unlike
+	 * {@link AnimationProcessor#tickAnimation}, this also sets up the Molang
+	 * queries of each animatable in its own {@link MolangContext}, so callers don't
+	 * need to call {@link AnimationProcessor#preAnimationSetup} themselves. The work shared by
+	 * every animatable, such as reload handling, is only done once, and the
+	 * animatables are then processed back to back.
+	 *
+	 * @param entries               The animatables to animate
+	 * @param seekTime              The current tick
+	 * @param parser                The Molang parser
+	 * @param crashWhenCantFindBone Whether to throw if the model is missing a bone
+	 *                              an animation uses
+	 * @return the timings of the batch
+	 */
+	public BatchTickStats tickAnimations(List<? extends AnimationTickEntry<T>> entries, double seekTime,
+			MolangParser parser, boolean crashWhenCantFindBone) {
+		boolean reloadAnimations = false;
+		boolean setUp = false;
+		long setupNanos = 0;
+		long queryNanos = 0;
+		long evaluationNanos = 0;
+		int animatedCount = 0;
+
+		KeyframeEventSink previousSink = bindKeyframeEventSink();
+
+		try {
+			for (AnimationTickEntry<T> entry : entries) {
+				long setupStart = System.nanoTime();
+				AnimationData manager = entry.animatable().getFactory().getOrCreateAnimationData(entry.uniqueID());
+
+				if (!markAnimated(manager, seekTime)) {
+					setupNanos += System.nanoTime() - setupStart;
+
+					continue;
+				}
+
+				// Only consume the reload once something is actually animated, the same as
+				// tickAnimation
+				if (!setUp) {
+					reloadAnimations = consumeReload();
+					setUp = true;
+				}
+
+				long queryStart = System.nanoTime();
+
+				setupNanos += queryStart - setupStart;
+
+				MolangContext previousContext = manager.getMolangContext().bind();
+				long evaluationStart;
+
+				try {
+					preAnimationSetup(entry.animatable(), seekTime);
+
+					evaluationStart = System.nanoTime();
+
+					animate(manager, seekTime, entry.event(), parser, crashWhenCantFindBone, reloadAnimations,
+							this.dirtyBones, true);
+				}
+				finally {
+					MolangContext.restore(previousContext);
+				}
+
+				queryNanos += evaluationStart - queryStart;
+				evaluationNanos += System.nanoTime() - evaluationStart;
+				animatedCount++;
+			}
+		}
+		finally {
+			restoreKeyframeEventSink(previousSink);
+		}
+
+		return new BatchTickStats(animatedCount, entries.size() - animatedCount, setupNanos, queryNanos,
+				evaluationNanos);
+	}
+
+	/**
+	 * Starts a new frame. Every animatable can be animated once per frame, any
+	 * other calls to the tick methods for it are ignored until the next one.<br>
+	 * Calling this is optional, a new frame is also started whenever the seek time
+	 * changes.
+	 */
+	public void beginFrame() {
+		this.frame++;
+	}
+
+	/**
+	 * Gets the number of frames this processor has started
+	 */
+	public long getFrame() {
+		return this.frame;
+	}
+
+	/**
+	 * Records that an animatable is being animated on the current frame.
+	 *
+	 * @return false if it was already animated on this frame
+	 */
+	private boolean markAnimated(AnimationData manager, double seekTime) {
+		if (seekTime != this.lastTickValue) {
+			this.lastTickValue = seekTime;
+			beginFrame();
+		}
+
+		return manager.markAnimated(this, this.frame);
+	}
+
+	/**
+	 * Clears {@link AnimationProcessor#reloadAnimations}, invalidating every
+	 * controller's cached animations if it was set.
+	 *
+	 * @return whether animations were reloaded
+	 */
+	private boolean consumeReload() {
+		boolean reloadAnimations = this.reloadAnimations;
+
+		// Animations were reloaded, so every controller's cached animations are stale
+		if (reloadAnimations)
+			AnimationController.markResourcesReloaded();
+
+		this.reloadAnimations = false;
+
+		return reloadAnimations;
+	}
+
+	/**
+	 * Animates a batch of animatables the same as
+	 * {@link AnimationProcessor#tickAnimations}, but splits the evaluation across
+	 * the given pool.<br>
+	 * Deduplication, reload handling and looking up each animatable's animation
+	 * data happen on the calling thread. Each animatable is evaluated with its own
+	 * {@link MolangContext}, so Molang queries set for one animatable never leak
+	 * into another being evaluated at the same time. Keyframe events are collected
+	 * per worker and dispatched on the calling thread once every animatable has
+	 * been evaluated, in the same order as the entries. If the processor has a
+	 * {@link KeyframeEventSink}, they are added to it instead.<br>
+	 * The bones are shared by every animatable, so the poses aren't written to them.
+	 * Call {@link AnimationProcessor#applyPose(AnimationData)} before rendering each
+	 * animatable.<br>
+	 * Controller predicates and {@link IAnimatableModel#setMolangQueries} are called
+	 * on the worker threads, so they must not touch state shared between
+	 * animatables, and each entry needs its own event.
+	 *
+	 * @param entries               The animatables to animate
+	 * @param seekTime              The current tick
+	 * @param parser                The Molang parser
+	 * @param crashWhenCantFindBone Whether to throw if the model is missing a bone
+	 *                              an animation uses
+	 * @param pool                  The pool to evaluate the animatables on
+	 * @return the timings of the batch. The query and evaluation times are summed
+	 *         over every worker
+	 */
+	public BatchTickStats tickAnimationsParallel(List<? extends AnimationTickEntry<T>> entries, double seekTime,
+			MolangParser parser, boolean crashWhenCantFindBone, ForkJoinPool pool) {
+		ParallelTick tick = prepareParallelTick(entries, seekTime, parser, crashWhenCantFindBone);
+
+		if (tick.managers.length > 0)
+			pool.invoke(tick.new Task(0, tick.managers.length));
+
+		tick.dispatchKeyframeEvents();
+
+		return tick.getStats();
+	}
+
+	/**
+	 * Starts animating a batch of animatables on the given pool for double-buffered
+	 * rendering, and returns straight away.<br>
+	 * Evaluation works the same as {@link AnimationProcessor#tickAnimationsParallel},
+	 * except each animatable is evaluated into the back buffer of its pose while the
+	 * renderer keeps drawing the front buffer with
+	 * {@link AnimationProcessor#applyFrontPose(AnimationData)}. At the next frame
+	 * boundary, call {@link PendingAnimationTick#complete()} on the render thread.
+	 * That waits for the evaluation to finish, dispatches the keyframe events and
+	 * swaps every animatable's buffers, so rendering only waits on a pointer swap.<br>
+	 * Until then, nothing else may animate this processor or the animatables in the
+	 * batch.
+	 *
+	 * @param entries               The animatables to animate
+	 * @param seekTime              The tick of the frame the poses are for
+	 * @param parser                The Molang parser
+	 * @param crashWhenCantFindBone Whether to throw if the model is missing a bone
+	 *                              an animation uses
+	 * @param pool                  The pool to evaluate the animatables on
+	 * @return the evaluation, to complete at the next frame boundary
+	 */
+	public PendingAnimationTick submitAnimations(List<? extends AnimationTickEntry<T>> entries, double seekTime,
+			MolangParser parser, boolean crashWhenCantFindBone, ForkJoinPool pool) {
+		ParallelTick tick = prepareParallelTick(entries, seekTime, parser, crashWhenCantFindBone);
+		ForkJoinTask<?> task = tick.managers.length > 0 ? pool.submit(tick.new Task(0, tick.managers.length)) : null;
+
+		return new PendingAnimationTick(task, () -> {
+			tick.dispatchKeyframeEvents();
+
+			for (AnimationData manager : tick.managers) {
+				manager.getModelState(AnimationProcessor.this).swapPoses();
+			}
+
+			return tick.getStats();
+		});
+	}
+
+	/**
+	 * Does the part of a parallel tick that has to happen on the calling thread:
+	 * deduplication, reload handling and looking up the animation data of each
+	 * animatable
+	 */
+	private ParallelTick prepareParallelTick(List<? extends AnimationTickEntry<T>> entries, double seekTime,
+			MolangParser parser, boolean crashWhenCantFindBone) {
+		long setupStart = System.nanoTime();
+		List<AnimationTickEntry<T>> animatedEntries = new ObjectArrayList<>(entries.size());
+		List<AnimationData> animatedManagers = new ObjectArrayList<>(entries.size());
+
+		for (AnimationTickEntry<T> entry : entries) {
+			AnimationData manager = entry.animatable().getFactory().getOrCreateAnimationData(entry.uniqueID());
+
+			// Marking creates the model state, so the workers never add to the
+			// animatable's model states
+			if (markAnimated(manager, seekTime)) {
+				animatedEntries.add(entry);
+				animatedManagers.add(manager);
+			}
+		}
+
+		int animatedCount = animatedEntries.size();
+		boolean reloadAnimations = animatedCount > 0 && consumeReload();
+
+		return new ParallelTick(animatedEntries, animatedManagers.toArray(new AnimationData[0]), seekTime, parser,
+				crashWhenCantFindBone, reloadAnimations, entries.size() - animatedCount,
+				System.nanoTime() - setupStart);
+	}
+
+	/**
+	 * Writes the pose an animatable was last animated into to this processor's
+	 * bones. Only needed for animatables animated by
+	 * {@link AnimationProcessor#tickAnimationsParallel}, the other tick methods do
+	 * this themselves.
+	 */
+	public void applyPose(AnimationData manager) {
+		applyPose(manager.getPose(this));
+	}
+
+	private void applyPose(Pose pose) {
+		pose.applyTo(this.modelRendererList);
+
+		this.lastAppliedPose = pose;
+	}
+
+	/**
+	 * Writes the front buffer of an animatable's pose to this processor's bones,
+	 * for animatables animated by {@link AnimationProcessor#submitAnimations}.
+	 *
+	 * @return false if the animatable has no front pose for this model yet, so the
+	 *         bones were left untouched
+	 */
+	public boolean applyFrontPose(AnimationData manager) {
+		Pose pose = manager.getModelState(this).getFrontPose();
+
+		if (pose == null || pose.getBoneCount() != this.modelRendererList.size())
+			return false;
+
+		applyPose(pose);
+
+		return true;
+	}
+
+	/**
+	 * The state shared by every task of one call to
+	 * {@link AnimationProcessor#tickAnimationsParallel}
+	 */
+	private class ParallelTick {
+		// Animatables per task before it stops splitting
+		private static final int BATCH_SIZE = 8;
+
+		private final List<AnimationTickEntry<T>> entries;
+		private final AnimationData[] managers;
+		// The events of each leaf task, at the index of its first entry
+		private final KeyframeEventSink[] keyframeEvents;
+		private final KeyframeEventSink keyframeEventSink;
+		private final double seekTime;
+		private final MolangParser parser;
+		private final boolean crashWhenCantFindBone;
+		private final boolean reloadAnimations;
+		private final int skippedCount;
+		private final long setupNanos;
+		private final LongAdder queryNanos = new LongAdder();
+		private final LongAdder evaluationNanos = new LongAdder();
+
+		private ParallelTick(List<AnimationTickEntry<T>> entries, AnimationData[] managers, double seekTime,
+				MolangParser parser, boolean crashWhenCantFindBone, boolean reloadAnimations, int skippedCount,
+				long setupNanos) {
+			this.entries = entries;
+			this.managers = managers;
+			this.keyframeEvents = new KeyframeEventSink[managers.length];
+			this.keyframeEventSink = AnimationProcessor.this.keyframeEventSink;
+			this.seekTime = seekTime;
+			this.parser = parser;
+			this.crashWhenCantFindBone = crashWhenCantFindBone;
+			this.reloadAnimations = reloadAnimations;
+			this.skippedCount = skippedCount;
+			this.setupNanos = setupNanos;
+		}
+
+		// Called on the calling thread once every task is done
+		private void dispatchKeyframeEvents() {
+			for (KeyframeEventSink events : this.keyframeEvents) {
+				if (events == null)
+					continue;
+
+				if (this.keyframeEventSink != null) {
+					this.keyframeEventSink.drainFrom(events);
+				}
+				else {
+					events.flush();
+				}
+			}
+		}
+
+		private BatchTickStats getStats() {
+			return new BatchTickStats(this.managers.length, this.skippedCount, this.setupNanos,
+					this.queryNanos.sum(), this.evaluationNanos.sum());
+		}
+
+		private class Task extends RecursiveAction {
+			// Never serialized, RecursiveAction is only Serializable through ForkJoinTask
+			private static final long serialVersionUID = 1L;
+
+			private final int start;
+			private final int end;
+
+			private Task(int start, int end) {
+				this.start = start;
+				this.end = end;
+			}
+
+			@Override
+			protected void compute() {
+				if (this.end - this.start > BATCH_SIZE) {
+					int middle = (this.start + this.end) >>> 1;
+
+					invokeAll(new Task(this.start, middle), new Task(middle, this.end));
+
+					return;
+				}
+
+				// Each worker needs its own, the processor's one is for the calling thread
+				DirtyBones dirtyBones = new DirtyBones();
+				KeyframeEventSink events = new KeyframeEventSink();
+				KeyframeEventSink previousSink = AnimationController.setKeyframeEventSink(events);
+
+				keyframeEvents[this.start] = events;
+
+				try {
+					for (int i = this.start; i < this.end; i++) {
+						AnimationTickEntry<T> entry = entries.get(i);
+						MolangContext previousContext = managers[i].getMolangContext().bind();
+						long queryStart = System.nanoTime();
+						long evaluationStart;
+
+						try {
+							preAnimationSetup(entry.animatable(), seekTime);
+
+							evaluationStart = System.nanoTime();
+
+							animate(managers[i], seekTime, entry.event(), parser, crashWhenCantFindBone,
+									reloadAnimations, dirtyBones, false);
+						}
+						finally {
+							MolangContext.restore(previousContext);
+						}
+
+						queryNanos.add(evaluationStart - queryStart);
+						evaluationNanos.add(System.nanoTime() - evaluationStart);
+					}
+				}
+				finally {
+					AnimationController.setKeyframeEventSink(previousSink);
+				}
+			}
+		}
+	}
+
+	private void animate(AnimationData manager, double seekTime, AnimationEvent<T> event, MolangParser parser,
+			boolean crashWhenCantFindBone, boolean reloadAnimations, DirtyBones dirtyBones, boolean applyPose) {
+		ModelState state = manager.getModelState(this);
 
 		// Store the current value of each bone rotation/position/scale
-		updateBoneSnapshots(manager.getBoneSnapshotCollection());
+		BoneSnapshot[] boneSnapshots = state.getBoneSnapshots();
 
-		Map<String, Pair<IBone, BoneSnapshot>> boneSnapshots = manager.getBoneSnapshotCollection();
+		// Every controller and the reset pass write into the pose, which is only
+		// copied to the bones once everything has been evaluated
+		Pose pose = state.getPose();
+
+		// Animatables with a level of detail policy only get evaluated every few
+		// frames, the pose is filled from the last evaluated ones in between
+		AnimationLodPolicy lodPolicy = manager.getLodPolicy();
+		int lodUpdateInterval = lodPolicy == null ? 1 : lodPolicy.getUpdateInterval(getLodScore(manager));
+
+		if (lodPolicy != null && !state.updateLod(lodUpdateInterval, pose)) {
+			if (applyPose)
+				applyPose(pose);
+
+			return;
+		}
+
+		boolean wasAtRest = state.isPoseAtRest();
+		IntArrayList bonesNotAtRest = state.getBonesNotAtRest();
+		boolean allControllersStopped = true;
+
+		dirtyBones.clear(this.modelRendererList.size());
 
 		for (AnimationController<T> controller : manager.getAnimationControllers().values()) {
-			if (reloadAnimations) {
+			if (reloadAnimations)
 				controller.markNeedsReload();
-				controller.getBoneAnimationQueues().clear();
-			}
 
 			controller.isJustStarting = manager.isFirstTick;
 
@@ -66,94 +529,97 @@ public class AnimationProcessor<T extends IAnimatable> {
 			event.setController(controller);
 
 			// Process animations and add new values to the point queues
-			controller.process(seekTime, event, modelRendererList, boneSnapshots, parser, crashWhenCantFindBone);
+			controller.process(seekTime, event, this, boneSnapshots, parser, crashWhenCantFindBone);
 
-			// Loop through every single bone and lerp each property
-			for (BoneAnimationQueue boneAnimation : controller.getBoneAnimationQueues().values()) {
-				IBone bone = boneAnimation.bone();
-				BoneSnapshot snapshot = boneSnapshots.get(bone.getName()).getRight();
-				BoneSnapshot initialSnapshot = bone.getInitialSnapshot();
+			// A stopped controller hasn't set any points, so there's nothing to lerp
+			if (controller.getAnimationState() == AnimationState.Stopped)
+				continue;
 
-				AnimationPoint rXPoint = boneAnimation.rotationXQueue().poll();
-				AnimationPoint rYPoint = boneAnimation.rotationYQueue().poll();
-				AnimationPoint rZPoint = boneAnimation.rotationZQueue().poll();
+			allControllersStopped = false;
 
-				AnimationPoint pXPoint = boneAnimation.positionXQueue().poll();
-				AnimationPoint pYPoint = boneAnimation.positionYQueue().poll();
-				AnimationPoint pZPoint = boneAnimation.positionZQueue().poll();
+			// Loop through every single bone and lerp each property
+			BoneAnimationQueue[] boneAnimationQueues = controller.getBoneAnimationQueues();
+
+			for (int i = 0; i < boneAnimationQueues.length; i++) {
+				BoneAnimationQueue boneAnimation = boneAnimationQueues[i];
+				BoneSnapshot snapshot = boneSnapshots[i];
+				BoneSnapshot initialSnapshot = boneAnimation.bone().getInitialSnapshot();
 
-				AnimationPoint sXPoint = boneAnimation.scaleXQueue().poll();
-				AnimationPoint sYPoint = boneAnimation.scaleYQueue().poll();
-				AnimationPoint sZPoint = boneAnimation.scaleZQueue().poll();
+				if (boneAnimation.hasAnyPoint())
+					state.markNotAtRest(i);
 
 				// If there's any rotation points for this bone
-				DirtyTracker dirtyTracker = modelTracker.get(bone.getName());
-				if (dirtyTracker == null) {
-					continue;
-				}
-				if (rXPoint != null && rYPoint != null && rZPoint != null) {
-					bone.setRotationX(MathUtil.lerpValues(rXPoint, controller.easingType, controller.customEasingMethod)
-							+ initialSnapshot.rotationValueX);
-					bone.setRotationY(MathUtil.lerpValues(rYPoint, controller.easingType, controller.customEasingMethod)
-							+ initialSnapshot.rotationValueY);
-					bone.setRotationZ(MathUtil.lerpValues(rZPoint, controller.easingType, controller.customEasingMethod)
-							+ initialSnapshot.rotationValueZ);
-					snapshot.rotationValueX = bone.getRotationX();
-					snapshot.rotationValueY = bone.getRotationY();
-					snapshot.rotationValueZ = bone.getRotationZ();
+				if (boneAnimation.hasRotation()) {
+					snapshot.rotationValueX = MathUtil.lerpValues(boneAnimation.rotationXPoint(),
+							controller.easingType, controller.customEasingMethod) + initialSnapshot.rotationValueX;
+					snapshot.rotationValueY = MathUtil.lerpValues(boneAnimation.rotationYPoint(),
+							controller.easingType, controller.customEasingMethod) + initialSnapshot.rotationValueY;
+					snapshot.rotationValueZ = MathUtil.lerpValues(boneAnimation.rotationZPoint(),
+							controller.easingType, controller.customEasingMethod) + initialSnapshot.rotationValueZ;
+					pose.setRotation(i, snapshot.rotationValueX, snapshot.rotationValueY, snapshot.rotationValueZ);
 					snapshot.isCurrentlyRunningRotationAnimation = true;
-					dirtyTracker.hasRotationChanged = true;
+					snapshot.isRotationAtRest = false;
+					dirtyBones.markRotationChanged(i);
 				}
 
 				// If there's any position points for this bone
-				if (pXPoint != null && pYPoint != null && pZPoint != null) {
-					bone.setPositionX(
-							MathUtil.lerpValues(pXPoint, controller.easingType, controller.customEasingMethod));
-					bone.setPositionY(
-							MathUtil.lerpValues(pYPoint, controller.easingType, controller.customEasingMethod));
-					bone.setPositionZ(
-							MathUtil.lerpValues(pZPoint, controller.easingType, controller.customEasingMethod));
-					snapshot.positionOffsetX = bone.getPositionX();
-					snapshot.positionOffsetY = bone.getPositionY();
-					snapshot.positionOffsetZ = bone.getPositionZ();
+				if (boneAnimation.hasPosition()) {
+					snapshot.positionOffsetX = MathUtil.lerpValues(boneAnimation.positionXPoint(),
+							controller.easingType, controller.customEasingMethod);
+					snapshot.positionOffsetY = MathUtil.lerpValues(boneAnimation.positionYPoint(),
+							controller.easingType, controller.customEasingMethod);
+					snapshot.positionOffsetZ = MathUtil.lerpValues(boneAnimation.positionZPoint(),
+							controller.easingType, controller.customEasingMethod);
+					pose.setPosition(i, snapshot.positionOffsetX, snapshot.positionOffsetY, snapshot.positionOffsetZ);
 					snapshot.isCurrentlyRunningPositionAnimation = true;
+					snapshot.isPositionAtRest = false;
 
-					dirtyTracker.hasPositionChanged = true;
+					dirtyBones.markPositionChanged(i);
 				}
 
 				// If there's any scale points for this bone
-				if (sXPoint != null && sYPoint != null && sZPoint != null) {
-					bone.setScaleX(MathUtil.lerpValues(sXPoint, controller.easingType, controller.customEasingMethod));
-					bone.setScaleY(MathUtil.lerpValues(sYPoint, controller.easingType, controller.customEasingMethod));
-					bone.setScaleZ(MathUtil.lerpValues(sZPoint, controller.easingType, controller.customEasingMethod));
-					snapshot.scaleValueX = bone.getScaleX();
-					snapshot.scaleValueY = bone.getScaleY();
-					snapshot.scaleValueZ = bone.getScaleZ();
+				if (boneAnimation.hasScale()) {
+					snapshot.scaleValueX = MathUtil.lerpValues(boneAnimation.scaleXPoint(), controller.easingType,
+							controller.customEasingMethod);
+					snapshot.scaleValueY = MathUtil.lerpValues(boneAnimation.scaleYPoint(), controller.easingType,
+							controller.customEasingMethod);
+					snapshot.scaleValueZ = MathUtil.lerpValues(boneAnimation.scaleZPoint(), controller.easingType,
+							controller.customEasingMethod);
+					pose.setScale(i, snapshot.scaleValueX, snapshot.scaleValueY, snapshot.scaleValueZ);
 					snapshot.isCurrentlyRunningScaleAnimation = true;
+					snapshot.isScaleAtRest = false;
 
-					dirtyTracker.hasScaleChanged = true;
+					dirtyBones.markScaleChanged(i);
 				}
+
+				boneAnimation.clear();
 			}
 		}
 
-		this.reloadAnimations = false;
+		// Nothing is animated and every bone finished resetting on the last frame, so
+		// the pose can't have changed. An interpolating level of detail replaces the
+		// pose with an older one, so it still has to be evaluated then
+		if (allControllersStopped && wasAtRest && (lodPolicy == null || !lodPolicy.interpolate())) {
+			if (lodPolicy != null)
+				state.storeLodPose(lodUpdateInterval, pose);
+
+			if (applyPose && !(this.skipRedundantBoneWrites && this.lastAppliedPose == pose))
+				applyPose(pose);
 
+			manager.isFirstTick = false;
+
+			return;
+		}
+
+		// Only bones that haven't finished resetting need to be visited. Channels that
+		// are at rest already hold their initial values in the pose
 		double resetTickLength = manager.getResetSpeed();
-		for (Map.Entry<String, DirtyTracker> tracker : modelTracker.entrySet()) {
-			IBone model = tracker.getValue().model;
-			BoneSnapshot initialSnapshot = model.getInitialSnapshot();
-			BoneSnapshot saveSnapshot = boneSnapshots.get(tracker.getKey()).getRight();
-			if (saveSnapshot == null) {
-				if (crashWhenCantFindBone) {
-					throw new RuntimeException(
-							"Could not find save snapshot for bone: " + tracker.getValue().model.getName()
-									+ ". Please don't add bones that are used in an animation at runtime.");
-				} else {
-					continue;
-				}
-			}
+		for (int j = bonesNotAtRest.size() - 1; j >= 0; j--) {
+			int i = bonesNotAtRest.getInt(j);
+			BoneSnapshot initialSnapshot = this.modelRendererList.get(i).getInitialSnapshot();
+			BoneSnapshot saveSnapshot = boneSnapshots[i];
 
-			if (!tracker.getValue().hasRotationChanged) {
+			if (!dirtyBones.hasRotationChanged(i) && !saveSnapshot.isRotationAtRest) {
 				if (saveSnapshot.isCurrentlyRunningRotationAnimation) {
 					saveSnapshot.mostRecentResetRotationTick = (float) seekTime;
 					saveSnapshot.isCurrentlyRunningRotationAnimation = false;
@@ -162,20 +628,28 @@ public class AnimationProcessor<T extends IAnimatable> {
 				double percentageReset = Math
 						.min((seekTime - saveSnapshot.mostRecentResetRotationTick) / resetTickLength, 1);
 
-				model.setRotationX(MathUtil.lerpValues(percentageReset, saveSnapshot.rotationValueX,
-						initialSnapshot.rotationValueX));
-				model.setRotationY(MathUtil.lerpValues(percentageReset, saveSnapshot.rotationValueY,
-						initialSnapshot.rotationValueY));
-				model.setRotationZ(MathUtil.lerpValues(percentageReset, saveSnapshot.rotationValueZ,
-						initialSnapshot.rotationValueZ));
+				pose.setRotation(i,
+						MathUtil.lerpValues(percentageReset, saveSnapshot.rotationValueX,
+								initialSnapshot.rotationValueX),
+						MathUtil.lerpValues(percentageReset, saveSnapshot.rotationValueY,
+								initialSnapshot.rotationValueY),
+						MathUtil.lerpValues(percentageReset, saveSnapshot.rotationValueZ,
+								initialSnapshot.rotationValueZ));
 
 				if (percentageReset >= 1) {
-					saveSnapshot.rotationValueX = model.getRotationX();
-					saveSnapshot.rotationValueY = model.getRotationY();
-					saveSnapshot.rotationValueZ = model.getRotationZ();
+					saveSnapshot.rotationValueX = pose.getRotation(i, Pose.X);
+					saveSnapshot.rotationValueY = pose.getRotation(i, Pose.Y);
+					saveSnapshot.rotationValueZ = pose.getRotation(i, Pose.Z);
+					saveSnapshot.isRotationAtRest = true;
 				}
 			}
-			if (!tracker.getValue().hasPositionChanged) {
+			else if (saveSnapshot.isRotationAtRest) {
+				// Finished resetting on an earlier frame, while the bone's other channels
+				// were still resetting
+				pose.setRotation(i, saveSnapshot.rotationValueX, saveSnapshot.rotationValueY,
+						saveSnapshot.rotationValueZ);
+			}
+			if (!dirtyBones.hasPositionChanged(i) && !saveSnapshot.isPositionAtRest) {
 				if (saveSnapshot.isCurrentlyRunningPositionAnimation) {
 					saveSnapshot.mostRecentResetPositionTick = (float) seekTime;
 					saveSnapshot.isCurrentlyRunningPositionAnimation = false;
@@ -184,20 +658,26 @@ public class AnimationProcessor<T extends IAnimatable> {
 				double percentageReset = Math
 						.min((seekTime - saveSnapshot.mostRecentResetPositionTick) / resetTickLength, 1);
 
-				model.setPositionX(MathUtil.lerpValues(percentageReset, saveSnapshot.positionOffsetX,
-						initialSnapshot.positionOffsetX));
-				model.setPositionY(MathUtil.lerpValues(percentageReset, saveSnapshot.positionOffsetY,
-						initialSnapshot.positionOffsetY));
-				model.setPositionZ(MathUtil.lerpValues(percentageReset, saveSnapshot.positionOffsetZ,
-						initialSnapshot.positionOffsetZ));
+				pose.setPosition(i,
+						MathUtil.lerpValues(percentageReset, saveSnapshot.positionOffsetX,
+								initialSnapshot.positionOffsetX),
+						MathUtil.lerpValues(percentageReset, saveSnapshot.positionOffsetY,
+								initialSnapshot.positionOffsetY),
+						MathUtil.lerpValues(percentageReset, saveSnapshot.positionOffsetZ,
+								initialSnapshot.positionOffsetZ));
 
 				if (percentageReset >= 1) {
-					saveSnapshot.positionOffsetX = model.getPositionX();
-					saveSnapshot.positionOffsetY = model.getPositionY();
-					saveSnapshot.positionOffsetZ = model.getPositionZ();
+					saveSnapshot.positionOffsetX = pose.getPosition(i, Pose.X);
+					saveSnapshot.positionOffsetY = pose.getPosition(i, Pose.Y);
+					saveSnapshot.positionOffsetZ = pose.getPosition(i, Pose.Z);
+					saveSnapshot.isPositionAtRest = true;
 				}
 			}
-			if (!tracker.getValue().hasScaleChanged) {
+			else if (saveSnapshot.isPositionAtRest) {
+				pose.setPosition(i, saveSnapshot.positionOffsetX, saveSnapshot.positionOffsetY,
+						saveSnapshot.positionOffsetZ);
+			}
+			if (!dirtyBones.hasScaleChanged(i) && !saveSnapshot.isScaleAtRest) {
 				if (saveSnapshot.isCurrentlyRunningScaleAnimation) {
 					saveSnapshot.mostRecentResetScaleTick = (float) seekTime;
 					saveSnapshot.isCurrentlyRunningScaleAnimation = false;
@@ -206,37 +686,50 @@ public class AnimationProcessor<T extends IAnimatable> {
 				double percentageReset = Math.min((seekTime - saveSnapshot.mostRecentResetScaleTick) / resetTickLength,
 						1);
 
-				model.setScaleX(
-						MathUtil.lerpValues(percentageReset, saveSnapshot.scaleValueX, initialSnapshot.scaleValueX));
-				model.setScaleY(
-						MathUtil.lerpValues(percentageReset, saveSnapshot.scaleValueY, initialSnapshot.scaleValueY));
-				model.setScaleZ(
+				pose.setScale(i,
+						MathUtil.lerpValues(percentageReset, saveSnapshot.scaleValueX, initialSnapshot.scaleValueX),
+						MathUtil.lerpValues(percentageReset, saveSnapshot.scaleValueY, initialSnapshot.scaleValueY),
 						MathUtil.lerpValues(percentageReset, saveSnapshot.scaleValueZ, initialSnapshot.scaleValueZ));
 
 				if (percentageReset >= 1) {
-					saveSnapshot.scaleValueX = model.getScaleX();
-					saveSnapshot.scaleValueY = model.getScaleY();
-					saveSnapshot.scaleValueZ = model.getScaleZ();
+					saveSnapshot.scaleValueX = pose.getScale(i, Pose.X);
+					saveSnapshot.scaleValueY = pose.getScale(i, Pose.Y);
+					saveSnapshot.scaleValueZ = pose.getScale(i, Pose.Z);
+					saveSnapshot.isScaleAtRest = true;
 				}
 			}
+			else if (saveSnapshot.isScaleAtRest) {
+				pose.setScale(i, saveSnapshot.scaleValueX, saveSnapshot.scaleValueY, saveSnapshot.scaleValueZ);
+			}
+
+			// Swap the last bone into this one's place, it has already been visited
+			if (saveSnapshot.isAtRest())
+				state.removeNotAtRest(j);
 		}
+
+		boolean atRest = allControllersStopped && bonesNotAtRest.isEmpty();
+
+		if (lodPolicy != null)
+			state.storeLodPose(lodUpdateInterval, pose);
+
+		// The bones are shared by every animatable using this model, so the pose has
+		// to be written to them every time
+		if (applyPose)
+			applyPose(pose);
+		state.setPoseAtRest(atRest);
 		manager.isFirstTick = false;
 	}
 
-	private Map<String, DirtyTracker> createNewDirtyTracker() {
-		Map<String, DirtyTracker> tracker = new Object2ObjectOpenHashMap<>();
-		for (IBone bone : modelRendererList) {
-			tracker.put(bone.getName(), new DirtyTracker(false, false, false, bone));
-		}
-		return tracker;
-	}
+	// The score set on the animation data, or its own distance query if it has none
+	private static double getLodScore(AnimationData manager) {
+		double score = manager.getLodScore();
 
-	private void updateBoneSnapshots(Map<String, Pair<IBone, BoneSnapshot>> boneSnapshotCollection) {
-		for (IBone bone : modelRendererList) {
-			if (!boneSnapshotCollection.containsKey(bone.getName())) {
-				boneSnapshotCollection.put(bone.getName(), Pair.of(bone, new BoneSnapshot(bone.getInitialSnapshot())));
-			}
-		}
+		if (!Double.isNaN(score))
+			return score;
+
+		LazyVariable distance = MolangParser.VARIABLES.get("query.distance_from_camera");
+
+		return distance == null ? 0 : manager.getMolangContext().getValue(distance);
 	}
 
 	/**
@@ -246,12 +739,9 @@ public class AnimationProcessor<T extends IAnimatable> {
 	 * @return the bone
 	 */
 	public IBone getBone(String boneName) {
-		for (IBone bone : this.modelRendererList) {
-			if (bone.getName().equals(boneName))
-				return bone;
-		}
+		int index = getBoneIndex(boneName);
 
-		return null;
+		return index < 0 ? null : this.modelRendererList.get(index);
 	}
 
 	/**
@@ -262,11 +752,74 @@ public class AnimationProcessor<T extends IAnimatable> {
 	 */
 	public void registerModelRenderer(IBone modelRenderer) {
 		modelRenderer.saveInitialSnapshot();
-		modelRendererList.add(modelRenderer);
+		this.boneIndexes.putIfAbsent(modelRenderer.getName(), this.modelRendererList.size());
+		this.modelRendererList.add(modelRenderer);
+		this.boneListRevision++;
 	}
 
 	public void clearModelRendererList() {
 		this.modelRendererList.clear();
+		this.lastAppliedPose = null;
+		this.boneIndexes.clear();
+		this.boneListRevision++;
+	}
+
+	/**
+	 * Gets the index of a bone in the model renderer list by name.
+	 *
+	 * @param boneName The bone name
+	 * @return the bone index, or -1 if no bone by that name is registered
+	 */
+	public int getBoneIndex(String boneName) {
+		return this.boneIndexes.getInt(boneName);
+	}
+
+	/**
+	 * Resolves the bone index of each of an animation's bone animations. The result
+	 * is cached on the animation until this processor's bones change, so bones are
+	 * only looked up once. Missing bones are skipped, unless crashing on them.
+	 * Also normalizes the animation the first time it is bound.
+	 *
+	 * @param animation             The animation to bind
+	 * @param crashWhenCantFindBone Whether to throw if the model is missing a bone
+	 *                              the animation uses
+	 * @return the bone index of each bone animation, in the same order as the
+	 *         animation's bone animations, or -1 for missing bones
+	 */
+	public int[] bindAnimation(Animation animation, boolean crashWhenCantFindBone) {
+		BoneBinding binding = animation.getBoneBinding(this);
+
+		if (binding != null)
+			return binding.boneIndexes();
+
+		// Another thread could be binding the same animation
+		synchronized (animation) {
+			if (!animation.isNormalized())
+				animation.normalize();
+		}
+
+		int[] boneIndexes = new int[animation.boneAnimations.size()];
+
+		for (int i = 0; i < boneIndexes.length; i++) {
+			String boneName = animation.boneAnimations.get(i).boneName;
+			boneIndexes[i] = getBoneIndex(boneName);
+
+			if (boneIndexes[i] < 0 && crashWhenCantFindBone)
+				throw new RuntimeException("Could not find bone: " + boneName);
+		}
+
+		animation.putBoneBinding(new BoneBinding(this, this.boneListRevision, boneIndexes));
+
+		return boneIndexes;
+	}
+
+	/**
+	 * Gets the current revision of the model renderer list. This changes every
+	 * time a bone is registered or the list is cleared, so anything built from the
+	 * bone list knows when it needs to be rebuilt.
+	 */
+	public int getBoneListRevision() {
+		return this.boneListRevision;
 	}
 
 	public List<IBone> getModelRendererList() {
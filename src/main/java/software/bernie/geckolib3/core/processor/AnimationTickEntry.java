@@ -0,0 +1,16 @@
+package software.bernie.geckolib3.core.processor;
+
+import software.bernie.geckolib3.core.IAnimatable;
+import software.bernie.geckolib3.core.event.predicate.AnimationEvent;
+
+/**
+ * One animatable to animate in a call to
+ * {@link AnimationProcessor#tickAnimations}.
+ *
+ * @param animatable The animatable
+ * @param uniqueID   The unique id of the animatable's animation data
+ * @param event      The event passed to the animatable's controllers
+ */
+public record AnimationTickEntry<T extends IAnimatable>(IAnimatable animatable, int uniqueID,
+		AnimationEvent<T> event) {
+}
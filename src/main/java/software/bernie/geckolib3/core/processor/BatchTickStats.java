@@ -0,0 +1,29 @@
+package software.bernie.geckolib3.core.processor;
+
+/**
+ * Timings of a call to {@link AnimationProcessor#tickAnimations}.
+ *
+ * @param animatedCount   The amount of animatables that were animated
+ * @param skippedCount    The amount of animatables that were skipped because
+ *                        they had already been animated on this tick
+ * @param setupNanos      The time spent looking up and deduplicating the
+ *                        animatables, and handling reloads
+ * @param queryNanos      The time spent setting the Molang queries of each
+ *                        animatable
+ * @param evaluationNanos The time spent evaluating the controllers and writing
+ *                        the poses of each animatable
+ */
+public record BatchTickStats(int animatedCount, int skippedCount, long setupNanos, long queryNanos,
+		long evaluationNanos) {
+	public long totalNanos() {
+		return this.setupNanos + this.queryNanos + this.evaluationNanos;
+	}
+
+	/**
+	 * Gets the average time spent on each animated animatable, or 0 if nothing was
+	 * animated
+	 */
+	public double averageNanosPerAnimatable() {
+		return this.animatedCount == 0 ? 0 : (this.queryNanos + this.evaluationNanos) / (double) this.animatedCount;
+	}
+}
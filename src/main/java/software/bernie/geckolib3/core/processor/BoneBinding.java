@@ -0,0 +1,50 @@
+package software.bernie.geckolib3.core.processor;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * The bone indexes of an animation's bone animations, resolved against one
+ * animation processor's bones. Created by
+ * {@link AnimationProcessor#bindAnimation} so bones don't have to be looked up
+ * by name every frame.<br>
+ * Animations outlive the models they are bound to, so the processor is only
+ * weakly referenced.
+ *
+ * @param processorReference The processor the animation was bound to
+ * @param boneListRevision   The processor's bone list revision at the time
+ * @param boneIndexes        The bone index of each bone animation, in the same
+ *                           order as the animation's bone animations, or -1 if
+ *                           the model doesn't have the bone
+ */
+public record BoneBinding(WeakReference<AnimationProcessor<?>> processorReference, int boneListRevision,
+		int[] boneIndexes) {
+	public BoneBinding(AnimationProcessor<?> processor, int boneListRevision, int[] boneIndexes) {
+		this(new WeakReference<>(processor), boneListRevision, boneIndexes);
+	}
+
+	/**
+	 * Gets the processor the animation was bound to, or null if it has been
+	 * garbage collected
+	 */
+	public AnimationProcessor<?> processor() {
+		return this.processorReference.get();
+	}
+
+	/**
+	 * Whether this binding is still valid for the given processor
+	 */
+	public boolean isBoundTo(AnimationProcessor<?> processor, int boneAnimationCount) {
+		return processor() == processor && this.boneListRevision == processor.getBoneListRevision()
+				&& this.boneIndexes.length == boneAnimationCount;
+	}
+
+	/**
+	 * Whether this binding can't be used anymore, because its processor was
+	 * garbage collected or its bones have changed since
+	 */
+	public boolean isStale() {
+		AnimationProcessor<?> processor = processor();
+
+		return processor == null || this.boneListRevision != processor.getBoneListRevision();
+	}
+}
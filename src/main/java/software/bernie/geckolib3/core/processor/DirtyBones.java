@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2020.
+ * Author: Bernie G. (Gecko)
+ */
+
+package software.bernie.geckolib3.core.processor;
+
+import java.util.Arrays;
+
+/**
+ * Keeps track of which bones had their rotation, position or scale set by an
+ * animation during a tick, one bit per bone for each property. Bone indexes are
+ * the same as the processor's model renderer list. Bones that aren't marked get
+ * reset to their initial values.
+ */
+public class DirtyBones {
+	private long[] rotation = new long[0];
+	private long[] position = new long[0];
+	private long[] scale = new long[0];
+	private int usedWords;
+
+	/**
+	 * Unmarks every bone, making room for the given number of bones if needed
+	 */
+	public void clear(int boneCount) {
+		int words = (boneCount + 63) >>> 6;
+
+		if (words > this.rotation.length) {
+			this.rotation = new long[words];
+			this.position = new long[words];
+			this.scale = new long[words];
+		}
+		else {
+			Arrays.fill(this.rotation, 0, this.usedWords, 0);
+			Arrays.fill(this.position, 0, this.usedWords, 0);
+			Arrays.fill(this.scale, 0, this.usedWords, 0);
+		}
+
+		this.usedWords = words;
+	}
+
+	public void markRotationChanged(int boneIndex) {
+		this.rotation[boneIndex >>> 6] |= 1L << boneIndex;
+	}
+
+	public void markPositionChanged(int boneIndex) {
+		this.position[boneIndex >>> 6] |= 1L << boneIndex;
+	}
+
+	public void markScaleChanged(int boneIndex) {
+		this.scale[boneIndex >>> 6] |= 1L << boneIndex;
+	}
+
+	public boolean hasRotationChanged(int boneIndex) {
+		return (this.rotation[boneIndex >>> 6] & 1L << boneIndex) != 0;
+	}
+
+	public boolean hasPositionChanged(int boneIndex) {
+		return (this.position[boneIndex >>> 6] & 1L << boneIndex) != 0;
+	}
+
+	public boolean hasScaleChanged(int boneIndex) {
+		return (this.scale[boneIndex >>> 6] & 1L << boneIndex) != 0;
+	}
+}
@@ -0,0 +1,45 @@
+package software.bernie.geckolib3.core.processor;
+
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+
+/**
+ * A batch of animatables being animated in the background, started by
+ * {@link AnimationProcessor#submitAnimations}.
+ */
+public class PendingAnimationTick {
+	private final ForkJoinTask<?> task;
+	private final Supplier<BatchTickStats> completion;
+	private BatchTickStats stats;
+
+	PendingAnimationTick(ForkJoinTask<?> task, Supplier<BatchTickStats> completion) {
+		this.task = task;
+		this.completion = completion;
+	}
+
+	/**
+	 * Whether the evaluation has finished, so {@link PendingAnimationTick#complete()}
+	 * won't block
+	 */
+	public boolean isDone() {
+		return this.task == null || this.task.isDone();
+	}
+
+	/**
+	 * Waits for the evaluation to finish, then dispatches its keyframe events and
+	 * swaps the pose buffers of every animatable in the batch. Must be called on
+	 * the render thread, between frames. Calling it again does nothing.
+	 *
+	 * @return the timings of the batch
+	 */
+	public BatchTickStats complete() {
+		if (this.stats == null) {
+			if (this.task != null)
+				this.task.join();
+
+			this.stats = this.completion.get();
+		}
+
+		return this.stats;
+	}
+}
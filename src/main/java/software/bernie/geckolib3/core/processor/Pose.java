@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2020.
+ * Author: Bernie G. (Gecko)
+ */
+
+package software.bernie.geckolib3.core.processor;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * The rotation, position and scale of every bone of a model. Each property is
+ * stored in its own array, three floats per bone, so the value of an axis of a
+ * bone is at {@code boneIndex * 3 + axis}. Bone indexes are the same as the
+ * processor's model renderer list.
+ */
+public class Pose {
+	public static final int X = 0;
+	public static final int Y = 1;
+	public static final int Z = 2;
+
+	public final float[] rotation;
+	public final float[] position;
+	public final float[] scale;
+	private final int boneCount;
+
+	public Pose(int boneCount) {
+		this.boneCount = boneCount;
+		this.rotation = new float[boneCount * 3];
+		this.position = new float[boneCount * 3];
+		this.scale = new float[boneCount * 3];
+	}
+
+	public int getBoneCount() {
+		return this.boneCount;
+	}
+
+	public float getRotation(int boneIndex, int axis) {
+		return this.rotation[boneIndex * 3 + axis];
+	}
+
+	public float getPosition(int boneIndex, int axis) {
+		return this.position[boneIndex * 3 + axis];
+	}
+
+	public float getScale(int boneIndex, int axis) {
+		return this.scale[boneIndex * 3 + axis];
+	}
+
+	public void setRotation(int boneIndex, float x, float y, float z) {
+		set(this.rotation, boneIndex, x, y, z);
+	}
+
+	public void setPosition(int boneIndex, float x, float y, float z) {
+		set(this.position, boneIndex, x, y, z);
+	}
+
+	public void setScale(int boneIndex, float x, float y, float z) {
+		set(this.scale, boneIndex, x, y, z);
+	}
+
+	private static void set(float[] values, int boneIndex, float x, float y, float z) {
+		int offset = boneIndex * 3;
+		values[offset] = x;
+		values[offset + 1] = y;
+		values[offset + 2] = z;
+	}
+
+	/**
+	 * Copies every value of another pose of the same size into this one.
+	 */
+	public void copyFrom(Pose other) {
+		System.arraycopy(other.rotation, 0, this.rotation, 0, this.rotation.length);
+		System.arraycopy(other.position, 0, this.position, 0, this.position.length);
+		System.arraycopy(other.scale, 0, this.scale, 0, this.scale.length);
+	}
+
+	/**
+	 * Sets every value of this pose to the linear interpolation between two other
+	 * poses of the same size.
+	 */
+	public void lerp(Pose from, Pose to, float progress) {
+		lerp(from.rotation, to.rotation, this.rotation, progress);
+		lerp(from.position, to.position, this.position, progress);
+		lerp(from.scale, to.scale, this.scale, progress);
+	}
+
+	private static void lerp(float[] from, float[] to, float[] values, float progress) {
+		for (int i = 0; i < values.length; i++) {
+			values[i] = from[i] + (to[i] - from[i]) * progress;
+		}
+	}
+
+	/**
+	 * Checks if another pose has exactly the same values as this one.
+	 */
+	public boolean contentEquals(Pose other) {
+		return other != null && Arrays.equals(this.rotation, other.rotation)
+				&& Arrays.equals(this.position, other.position) && Arrays.equals(this.scale, other.scale);
+	}
+
+	/**
+	 * Reads the current values of the given bones into this pose.
+	 *
+	 * @param bones The bones, in bone index order
+	 */
+	public void captureFrom(List<IBone> bones) {
+		for (int i = 0; i < this.boneCount; i++) {
+			IBone bone = bones.get(i);
+
+			setRotation(i, bone.getRotationX(), bone.getRotationY(), bone.getRotationZ());
+			setPosition(i, bone.getPositionX(), bone.getPositionY(), bone.getPositionZ());
+			setScale(i, bone.getScaleX(), bone.getScaleY(), bone.getScaleZ());
+		}
+	}
+
+	/**
+	 * Writes this pose to the given bones.
+	 *
+	 * @param bones The bones, in bone index order
+	 */
+	public void applyTo(List<IBone> bones) {
+		for (int i = 0; i < this.boneCount; i++) {
+			IBone bone = bones.get(i);
+			int offset = i * 3;
+
+			bone.setRotationX(this.rotation[offset]);
+			bone.setRotationY(this.rotation[offset + 1]);
+			bone.setRotationZ(this.rotation[offset + 2]);
+			bone.setPositionX(this.position[offset]);
+			bone.setPositionY(this.position[offset + 1]);
+			bone.setPositionZ(this.position[offset + 2]);
+			bone.setScaleX(this.scale[offset]);
+			bone.setScaleY(this.scale[offset + 1]);
+			bone.setScaleZ(this.scale[offset + 2]);
+		}
+	}
+}
@@ -87,6 +87,15 @@ public class BoneSnapshot {
 	public boolean isCurrentlyRunningPositionAnimation = true;
 	public boolean isCurrentlyRunningScaleAnimation = true;
 
+	// Whether each property has finished resetting and holds its initial value
+	public boolean isRotationAtRest = false;
+	public boolean isPositionAtRest = false;
+	public boolean isScaleAtRest = false;
+
+	public boolean isAtRest() {
+		return this.isRotationAtRest && this.isPositionAtRest && this.isScaleAtRest;
+	}
+
 	@Override
 	public boolean equals(Object o) {
 		if (this == o) {
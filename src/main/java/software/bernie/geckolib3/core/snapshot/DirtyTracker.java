@@ -7,6 +7,11 @@ package software.bernie.geckolib3.core.snapshot;
 
 import software.bernie.geckolib3.core.processor.IBone;
 
+/**
+ * @deprecated The processor tracks changed bones with
+ *             {@link software.bernie.geckolib3.core.processor.DirtyBones}
+ */
+@Deprecated
 public class DirtyTracker {
 	public IBone model;
 	public boolean hasScaleChanged;
@@ -1,8 +1,10 @@
 package software.bernie.geckolib3.core.util;
 
+import it.unimi.dsi.fastutil.doubles.Double2DoubleFunction;
 import software.bernie.geckolib3.core.easing.EasingManager;
 import software.bernie.geckolib3.core.easing.EasingType;
 import software.bernie.geckolib3.core.keyframe.AnimationPoint;
+import software.bernie.geckolib3.core.keyframe.AnimationPointSlot;
 
 import java.util.function.Function;
 
@@ -33,6 +35,32 @@ public class MathUtil {
 		return lerpValues(ease, animationPoint.animationStartValue, animationPoint.animationEndValue);
 	}
 
+	/**
+	 * Lerps an AnimationPointSlot, without boxing the easing values
+	 *
+	 * @param animationPoint The animation point slot
+	 * @return the resulting lerped value
+	 */
+	public static float lerpValues(AnimationPointSlot animationPoint, EasingType easingType,
+			Double2DoubleFunction customEasingMethod) {
+		if (animationPoint.currentTick >= animationPoint.animationEndTick) {
+			return (float)animationPoint.animationEndValue;
+		}
+		if (animationPoint.currentTick == 0 && animationPoint.animationEndTick == 0) {
+			return (float)animationPoint.animationEndValue;
+		}
+
+		if (easingType == EasingType.CUSTOM && customEasingMethod != null) {
+			return lerpValues(customEasingMethod.get(animationPoint.currentTick / animationPoint.animationEndTick),
+					animationPoint.animationStartValue, animationPoint.animationEndValue);
+		} else if (easingType == EasingType.NONE && animationPoint.keyframe != null) {
+			easingType = animationPoint.keyframe.easingType;
+		}
+		double ease = EasingManager.ease(animationPoint.currentTick / animationPoint.animationEndTick, easingType,
+				animationPoint.keyframe == null ? null : animationPoint.keyframe.easingArgs);
+		return lerpValues(ease, animationPoint.animationStartValue, animationPoint.animationEndValue);
+	}
+
 	/**
 	 * This is the actual function that smoothly interpolates (lerp) between
 	 * keyframes
@@ -0,0 +1,57 @@
+package software.bernie.geckolib3.core.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.junit.jupiter.api.Test;
+import software.bernie.geckolib3.core.builder.Animation;
+import software.bernie.geckolib3.core.keyframe.EventKeyFrame;
+import software.bernie.geckolib3.core.molang.MolangParser;
+import software.bernie.geckolib3.core.processor.TestAnimatable;
+import software.bernie.geckolib3.core.processor.TestModel;
+
+import java.util.List;
+
+class AnimationControllerTest {
+	private static final String[] SOUNDS = {"start", "middle", "end"};
+
+	private final MolangParser parser = new MolangParser(null);
+
+	@Test
+	void soundsFireOnceEveryLoopAcrossTheWrap() {
+		Animation animation = TestModel.animation("spin", 20, TestModel.rotateX("body", 20, 0, 20));
+		// Added out of order, the controller fires them sorted
+		animation.soundKeyFrames.add(new EventKeyFrame<>(19.5, "end"));
+		animation.soundKeyFrames.add(new EventKeyFrame<>(0.5, "start"));
+		animation.soundKeyFrames.add(new EventKeyFrame<>(10, "middle"));
+
+		TestModel model = new TestModel("body").addAnimation(animation);
+		TestAnimatable animatable = new TestAnimatable(model);
+		List<String> sounds = new ObjectArrayList<>();
+		int wrapsFiringBothEnds = 0;
+
+		animatable.predicate = TestModel.play("spin");
+		animatable.getData().getAnimationControllers().get("main")
+				.registerSoundListener(event -> sounds.add(event.sound));
+
+		// Frames three ticks apart, so most loops end between two frames
+		for (int tick = 1; tick <= 80; tick += 3) {
+			int before = sounds.size();
+
+			model.getAnimationProcessor().tickAnimation(animatable, 0, tick, animatable.event(), this.parser, false);
+
+			List<String> fired = sounds.subList(before, sounds.size());
+
+			if (fired.size() >= 2 && fired.indexOf("end") >= 0 && fired.indexOf("end") < fired.indexOf("start"))
+				wrapsFiringBothEnds++;
+		}
+
+		for (int i = 0; i < sounds.size(); i++) {
+			assertEquals(SOUNDS[i % SOUNDS.length], sounds.get(i), "Sound " + i + " of " + sounds);
+		}
+
+		assertTrue(sounds.size() >= 3 * SOUNDS.length, "Only " + sounds.size() + " sounds fired");
+		assertTrue(wrapsFiringBothEnds > 0, "No frame fired the end of a loop and the start of the next");
+	}
+}
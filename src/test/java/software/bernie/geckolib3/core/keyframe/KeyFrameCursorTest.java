@@ -0,0 +1,53 @@
+package software.bernie.geckolib3.core.keyframe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import org.junit.jupiter.api.Test;
+
+class KeyFrameCursorTest {
+	private final double[] startTicks = VectorKeyFrameListTest.startTicks(1, 0, 2, 0.5, 0.5, 1, 1, 1, 1, 1, 1, 1, 1, 3);
+
+	@Test
+	void landsOnBoundariesPlayingForwards() {
+		KeyFrameCursor cursor = new KeyFrameCursor();
+
+		for (double tick = 0; tick <= 20; tick += 0.25) {
+			assertSeeks(cursor, this.startTicks, tick);
+		}
+	}
+
+	@Test
+	void searchesAgainWhenSeekingBackwards() {
+		KeyFrameCursor cursor = new KeyFrameCursor();
+
+		// Looping back to the start, then seeking into the middle of the track
+		assertSeeks(cursor, this.startTicks, 14);
+		assertSeeks(cursor, this.startTicks, 0);
+		assertSeeks(cursor, this.startTicks, 6);
+		assertSeeks(cursor, this.startTicks, 5.999);
+		assertSeeks(cursor, this.startTicks, 3);
+
+		for (double tick = 16; tick >= -1; tick -= 0.5) {
+			assertSeeks(cursor, this.startTicks, tick);
+		}
+	}
+
+	@Test
+	void searchesAgainAfterLongJumpsOrAnotherTrack() {
+		KeyFrameCursor cursor = new KeyFrameCursor();
+		double[] otherStartTicks = VectorKeyFrameListTest.startTicks(4, 4);
+
+		assertSeeks(cursor, this.startTicks, 0);
+		// Further than the cursor steps before searching
+		assertSeeks(cursor, this.startTicks, 13);
+		assertSeeks(cursor, otherStartTicks, 4);
+		assertSeeks(cursor, this.startTicks, 4);
+		assertSeeks(cursor, VectorKeyFrameListTest.startTicks(), 4);
+		assertSeeks(cursor, otherStartTicks, 3.999);
+	}
+
+	private static void assertSeeks(KeyFrameCursor cursor, double[] startTicks, double tick) {
+		assertEquals(VectorKeyFrameList.findKeyFrameIndex(startTicks, tick), cursor.seek(startTicks, tick),
+				"Tick " + tick);
+	}
+}
@@ -0,0 +1,93 @@
+package software.bernie.geckolib3.core.keyframe;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.mclib.math.IValue;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import org.junit.jupiter.api.Test;
+import software.bernie.geckolib3.core.util.Axis;
+
+import java.util.List;
+
+class VectorKeyFrameListTest {
+	@Test
+	void findsTheKeyFrameStartingAtABoundary() {
+		double[] startTicks = startTicks(2, 3, 5);
+
+		assertEquals(0, VectorKeyFrameList.findKeyFrameIndex(startTicks, -1));
+		assertEquals(0, VectorKeyFrameList.findKeyFrameIndex(startTicks, 0));
+		assertEquals(0, VectorKeyFrameList.findKeyFrameIndex(startTicks, 1.999));
+		assertEquals(1, VectorKeyFrameList.findKeyFrameIndex(startTicks, 2));
+		assertEquals(1, VectorKeyFrameList.findKeyFrameIndex(startTicks, 4.999));
+		assertEquals(2, VectorKeyFrameList.findKeyFrameIndex(startTicks, 5));
+		assertEquals(2, VectorKeyFrameList.findKeyFrameIndex(startTicks, 10), "The end of the track");
+		assertEquals(2, VectorKeyFrameList.findKeyFrameIndex(startTicks, 50), "Past the end of the track");
+	}
+
+	@Test
+	void skipsKeyFramesWithoutLength() {
+		double[] startTicks = startTicks(2, 0, 0, 3);
+
+		assertEquals(0, VectorKeyFrameList.findKeyFrameIndex(startTicks, 1));
+		assertEquals(3, VectorKeyFrameList.findKeyFrameIndex(startTicks, 2));
+		assertEquals(3, VectorKeyFrameList.findKeyFrameIndex(startTicks, 5));
+		assertEquals(-1, VectorKeyFrameList.findKeyFrameIndex(startTicks(), 0), "An empty track");
+	}
+
+	@Test
+	void matchesALinearScan() {
+		double[] startTicks = startTicks(1, 0.5, 0, 4, 2.25, 1, 0, 3);
+
+		for (double tick = -1; tick <= 14; tick += 0.125) {
+			int expected = 0;
+
+			while (expected < startTicks.length - 2 && startTicks[expected + 1] <= tick) {
+				expected++;
+			}
+
+			assertEquals(expected, VectorKeyFrameList.findKeyFrameIndex(startTicks, tick), "Tick " + tick);
+		}
+	}
+
+	@Test
+	void localTicksStartAtEachKeyFrame() {
+		double[] startTicks = startTicks(2, 3, 5);
+
+		assertEquals(0, VectorKeyFrameList.getLocalTick(startTicks, 0, 0));
+		assertEquals(0, VectorKeyFrameList.getLocalTick(startTicks, 1, 2));
+		assertEquals(2.5, VectorKeyFrameList.getLocalTick(startTicks, 1, 4.5));
+		assertEquals(4.5, VectorKeyFrameList.getLocalTick(startTicks, 2, 9.5));
+		// The last keyframe finishes on its end value
+		assertEquals(10, VectorKeyFrameList.getLocalTick(startTicks, 2, 10));
+		assertEquals(12, VectorKeyFrameList.getLocalTick(startTicks, 2, 12));
+	}
+
+	@Test
+	void startTicksFollowTheKeyFrames() {
+		VectorKeyFrameList<KeyFrame<IValue>> list = new VectorKeyFrameList<>(keyFrames(2, 3), keyFrames(),
+				keyFrames(4));
+
+		assertEquals(5, list.getStartTicks(Axis.X)[2]);
+		assertEquals(1, list.getStartTicks(Axis.Y).length);
+		assertEquals(5, list.getLastKeyframeTime());
+
+		list.xKeyFrames.add(new KeyFrame<>(1d, new Constant(0), new Constant(0)));
+
+		assertEquals(6, list.getStartTicks(Axis.X)[3], "The index wasn't rebuilt after a keyframe was added");
+	}
+
+	static double[] startTicks(double... lengths) {
+		return new VectorKeyFrameList<>(keyFrames(lengths), keyFrames(), keyFrames()).getStartTicks(Axis.X);
+	}
+
+	private static List<KeyFrame<IValue>> keyFrames(double... lengths) {
+		List<KeyFrame<IValue>> keyFrames = new ObjectArrayList<>();
+
+		for (double length : lengths) {
+			keyFrames.add(new KeyFrame<>(length, new Constant(0), new Constant(0)));
+		}
+
+		return keyFrames;
+	}
+}
@@ -0,0 +1,77 @@
+package software.bernie.geckolib3.core.manager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+class AnimationDataCacheTest {
+	@Test
+	void keepsTheMostRecentlyUsedDataWithinTheMaximumSize() {
+		// Two per stripe
+		AnimationDataCache cache = new AnimationDataCache(32, 0);
+		AnimationData kept = cache.getOrCreate(0, id -> new AnimationData());
+
+		cache.getOrCreate(1, id -> new AnimationData());
+
+		for (int id = 2; id < 1000; id++) {
+			cache.getOrCreate(id, key -> new AnimationData());
+			assertSame(kept, cache.getOrCreate(0, key -> new AnimationData()), "Recently used data was evicted");
+		}
+
+		AnimationDataCacheStats stats = cache.getStats();
+
+		assertTrue(cache.size() <= 32, "The cache grew to " + cache.size());
+		assertNull(cache.getIfPresent(1), "The least recently used data wasn't evicted");
+		assertEquals(1000, stats.misses());
+		assertEquals(1000 - stats.size(), stats.evictions());
+	}
+
+	@Test
+	void evictsIdleData() throws InterruptedException {
+		AnimationDataCache cache = new AnimationDataCache(AnimationDataCache.DEFAULT_MAXIMUM_SIZE, 1);
+		AnimationData data = cache.getOrCreate(0, id -> new AnimationData());
+
+		cache.getOrCreate(1, id -> new AnimationData());
+		Thread.sleep(20);
+
+		assertNotSame(data, cache.getOrCreate(0, id -> new AnimationData()), "Idle data was used again");
+
+		cache.cleanUp();
+
+		assertNull(cache.getIfPresent(1), "Cleaning up didn't evict idle data");
+	}
+
+	@Test
+	void createsDataWithoutHoldingTheLock() {
+		AnimationDataCache cache = new AnimationDataCache();
+		AtomicBoolean otherThreadFinished = new AtomicBoolean();
+		AnimationData data = cache.getOrCreate(0, id -> {
+			// Looks up the same id, so it's always in the same stripe
+			Thread other = new Thread(() -> {
+				cache.getIfPresent(id);
+				otherThreadFinished.set(true);
+			});
+
+			other.start();
+
+			try {
+				other.join(5000);
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+
+			return new AnimationData();
+		});
+
+		assertTrue(otherThreadFinished.get(), "The stripe was locked while creating the data");
+		assertSame(data, cache.getIfPresent(0));
+		assertEquals(1, cache.getStats().misses());
+	}
+}
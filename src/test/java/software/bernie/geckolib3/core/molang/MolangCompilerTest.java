@@ -0,0 +1,193 @@
+package software.bernie.geckolib3.core.molang;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.mclib.math.Group;
+import com.eliotlash.mclib.math.IValue;
+import com.eliotlash.mclib.math.Negate;
+import com.eliotlash.mclib.math.Negative;
+import com.eliotlash.mclib.math.Operation;
+import com.eliotlash.mclib.math.Operator;
+import com.eliotlash.mclib.math.Ternary;
+import org.junit.jupiter.api.Test;
+import software.bernie.geckolib3.core.molang.expressions.MolangAssignment;
+import software.bernie.geckolib3.core.molang.expressions.MolangExpression;
+import software.bernie.geckolib3.core.molang.expressions.MolangMultiStatement;
+import software.bernie.geckolib3.core.molang.expressions.MolangValue;
+import software.bernie.geckolib3.core.molang.functions.CosDegrees;
+import software.bernie.geckolib3.core.molang.functions.SinDegrees;
+
+/**
+ * Checks that compiled expressions give exactly the same results as the
+ * interpreter
+ */
+class MolangCompilerTest {
+	private static final double[] INPUTS = {-2, -0.5, 0, 0.000001, 1, 2.5, 3, 90};
+	private static final String[] EXPRESSIONS = {
+			"query.parity_x * 3 + (1 - query.parity_x)",
+			"query.parity_x / 0 + 5 / query.parity_x - query.parity_x / (query.parity_x - query.parity_x)",
+			"query.parity_x % 0.75 - query.parity_x ^ 3",
+			"-(query.parity_x - 4) + !query.parity_x",
+			"query.parity_x < 0 || query.parity_x >= 2.5 && query.parity_x != 3",
+			"query.parity_x <= 1 == (query.parity_x > -1)",
+			"query.parity_x == 3.000001 ? 10 : (query.parity_x > 0 ? 20 : 30)",
+			"math.sin(query.parity_x * 90) + math.cos(query.parity_x)",
+			"math.abs(query.parity_x) + math.sqrt(math.abs(query.parity_x)) + math.floor(query.parity_x)",
+			"math.pow(query.parity_x, 2) + math.min(query.parity_x, 1) + math.max(query.parity_x, 1)",
+			"math.clamp(query.parity_x, 0, 2)",
+			"temp.a = query.parity_x * query.parity_x; temp.b = temp.a - query.parity_x; return temp.b / temp.a",
+			"variable.parity_result = query.parity_x * 2; variable.parity_result + 1"};
+
+	private final MolangParser parser = new MolangParser(null);
+	private final LazyVariable x = this.parser.getVariable("query.compiler_test_x", null);
+
+	@Test
+	void divisionByZero() {
+		assertMatchesInterpreter(value(operator(Operation.DIV, this.x, new Constant(0))));
+		assertMatchesInterpreter(value(operator(Operation.DIV, new Constant(5), this.x)));
+		assertMatchesInterpreter(value(operator(Operation.DIV, this.x, operator(Operation.SUB, this.x, this.x))));
+	}
+
+	@Test
+	void arithmetic() {
+		assertMatchesInterpreter(value(operator(Operation.ADD, operator(Operation.MUL, this.x, new Constant(3)),
+				operator(Operation.SUB, new Constant(1), this.x))));
+		assertMatchesInterpreter(value(operator(Operation.MOD, this.x, new Constant(0.75))));
+		assertMatchesInterpreter(value(operator(Operation.POW, this.x, new Constant(3))));
+		assertMatchesInterpreter(value(new Negative(new Group(operator(Operation.SUB, this.x, new Constant(4))))));
+	}
+
+	@Test
+	void comparisonsAndLogic() {
+		for (Operation operation : new Operation[] {Operation.LESS, Operation.LESS_THAN, Operation.GREATER,
+				Operation.GREATER_THAN, Operation.EQUALS, Operation.NOT_EQUALS, Operation.AND, Operation.OR}) {
+			assertMatchesInterpreter(value(operator(operation, this.x, new Constant(0))));
+		}
+
+		assertMatchesInterpreter(value(new Negate(this.x)));
+	}
+
+	@Test
+	void ternaries() {
+		IValue nested = new Ternary(operator(Operation.GREATER, this.x, new Constant(2)),
+				new Ternary(operator(Operation.EQUALS, this.x, new Constant(3.000001)), new Constant(10),
+						new Constant(20)),
+				new Ternary(new Negate(this.x), new Constant(30), operator(Operation.DIV, new Constant(1), this.x)));
+
+		assertMatchesInterpreter(value(operator(Operation.ADD, nested, this.x)));
+	}
+
+	@Test
+	void degreeFunctions() throws Exception {
+		IValue sin = new SinDegrees(new IValue[] {operator(Operation.MUL, this.x, new Constant(90))}, "math.sin");
+		IValue cos = new CosDegrees(new IValue[] {this.x}, "math.cos");
+
+		assertMatchesInterpreter(value(operator(Operation.ADD, sin, cos)));
+	}
+
+	@Test
+	void assignmentsAndUnknownNodes() {
+		LazyVariable result = this.parser.getVariable("query.compiler_test_result", null);
+		IValue custom = () -> 7.5;
+
+		assertMatchesInterpreter(new MolangAssignment(this.parser, result, operator(Operation.MUL, this.x, custom)),
+				value(operator(Operation.ADD, result, new Constant(1))));
+	}
+
+	@Test
+	void locals() {
+		MolangMultiStatement statement = new MolangMultiStatement(this.parser);
+		LazyVariable first = statement.addLocal("temp.first");
+		LazyVariable second = statement.addLocal("temp.second");
+
+		statement.expressions.add(new MolangAssignment(this.parser, first, operator(Operation.MUL, this.x, this.x)));
+		statement.expressions.add(new MolangAssignment(this.parser, second, operator(Operation.SUB, first, this.x)));
+		statement.expressions.add(value(operator(Operation.DIV, second, first)));
+
+		assertMatchesInterpreter(statement);
+	}
+
+	@Test
+	void parsedExpressionsMatchWithCompilationOnAndOff() throws MolangException {
+		MolangParser interpreting = new MolangParser(null);
+		MolangParser compiling = new MolangParser(null);
+		LazyVariable parityX = interpreting.getVariable("query.parity_x", null);
+
+		compiling.setCompileExpressions(true);
+
+		for (String source : EXPRESSIONS) {
+			MolangMultiStatement interpreted = (MolangMultiStatement)interpreting.parseExpression(source);
+			MolangMultiStatement compiled = (MolangMultiStatement)compiling.parseExpression(source);
+
+			assertFalse(interpreted.isCompiled(), source);
+			assertTrue(compiled.isCompiled(), source);
+
+			for (double input : INPUTS) {
+				MolangContext context = new MolangContext();
+
+				parityX.set(input);
+
+				double expected = interpreted.get();
+
+				assertEquals(expected, compiled.get(), source + " with x = " + input);
+
+				// Values bound to a context hide the shared ones, then supplied lazily
+				parityX.set(-input);
+				context.setValue(parityX, input);
+				assertEquals(expected, evaluate(context, interpreted), source + " with x = " + input);
+				assertEquals(expected, evaluate(context, compiled), source + " with x = " + input);
+
+				context.setValue(parityX, () -> input);
+				assertEquals(expected, evaluate(context, compiled), source + " with x = " + input);
+			}
+		}
+	}
+
+	private static double evaluate(MolangContext context, MolangExpression expression) {
+		MolangContext previous = context.bind();
+
+		try {
+			return expression.get();
+		}
+		finally {
+			MolangContext.restore(previous);
+		}
+	}
+
+	private void assertMatchesInterpreter(MolangExpression... expressions) {
+		MolangMultiStatement statement = new MolangMultiStatement(this.parser);
+
+		for (MolangExpression expression : expressions) {
+			statement.expressions.add(expression);
+		}
+
+		assertMatchesInterpreter(statement);
+	}
+
+	private void assertMatchesInterpreter(MolangMultiStatement statement) {
+		double[] expected = new double[INPUTS.length];
+
+		for (int i = 0; i < INPUTS.length; i++) {
+			this.x.set(INPUTS[i]);
+			expected[i] = statement.get();
+		}
+
+		assertTrue(statement.compile(), "The expression couldn't be compiled");
+
+		for (int i = 0; i < INPUTS.length; i++) {
+			this.x.set(INPUTS[i]);
+			assertEquals(expected[i], statement.get(), "Different result for x = " + INPUTS[i]);
+		}
+	}
+
+	private MolangValue value(IValue value) {
+		return new MolangValue(this.parser, value);
+	}
+
+	private static Operator operator(Operation operation, IValue a, IValue b) {
+		return new Operator(operation, a, b);
+	}
+}
@@ -0,0 +1,100 @@
+package software.bernie.geckolib3.core.molang;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.mclib.math.Operation;
+import com.eliotlash.mclib.math.Operator;
+import org.junit.jupiter.api.Test;
+import software.bernie.geckolib3.core.molang.expressions.MolangAssignment;
+import software.bernie.geckolib3.core.molang.expressions.MolangMultiStatement;
+import software.bernie.geckolib3.core.molang.expressions.MolangValue;
+
+class MolangContextTest {
+	private final MolangParser parser = new MolangParser(null);
+
+	@Test
+	void slotsAreOnlyTakenByNewVariables() {
+		int first = this.parser.getSlot("query.context_test_first");
+
+		// Each parser registers the same variables again
+		new MolangParser(null);
+		new MolangParser(null);
+
+		MolangMultiStatement statement = new MolangMultiStatement(this.parser);
+
+		statement.addLocal("temp.a");
+		statement.addLocal("temp.b");
+
+		assertEquals(first + 1, this.parser.getSlot("query.context_test_second"));
+		assertEquals(first, this.parser.getSlot("query.context_test_first"));
+	}
+
+	@Test
+	void localsUseTheirExpressionsFrame() {
+		MolangMultiStatement statement = new MolangMultiStatement(this.parser);
+		LazyVariable first = statement.addLocal("temp.first");
+		LazyVariable second = statement.addLocal("temp.second");
+
+		assertTrue(first.isLocal());
+		assertEquals(-1, first.getSlot());
+		assertEquals(0, first.getLocalIndex());
+		assertEquals(1, second.getLocalIndex());
+	}
+
+	@Test
+	void valuesStayInTheirContext() {
+		LazyVariable x = this.parser.getVariable("query.context_test_x", null);
+		MolangContext a = new MolangContext();
+		MolangContext b = new MolangContext();
+
+		x.set(1);
+		a.setValue(x, 2);
+		b.setValue(x, () -> 3);
+
+		assertEquals(1, x.get());
+		assertEquals(2, a.getValue(x));
+		assertEquals(3, b.getValue(x));
+
+		MolangContext copy = a.copy();
+
+		a.setValue(x, 4);
+
+		assertEquals(2, copy.getValue(x));
+
+		a.clear();
+
+		assertEquals(1, a.getValue(x));
+	}
+
+	@Test
+	void localsStartAtZeroOnEveryEvaluation() {
+		MolangMultiStatement statement = new MolangMultiStatement(this.parser);
+		LazyVariable count = statement.addLocal("temp.count");
+
+		statement.expressions.add(new MolangAssignment(this.parser, count,
+				new Operator(Operation.ADD, count, new Constant(1))));
+		statement.expressions.add(new MolangValue(this.parser, count));
+
+		MolangContext context = new MolangContext();
+
+		assertEquals(1, statement.get(context));
+		assertEquals(1, statement.get(context));
+		assertTrue(statement.compile());
+		assertEquals(1, statement.get(context));
+		assertEquals(0, count.getSharedValue(), "The local was stored outside of the context");
+	}
+
+	@Test
+	void parsedExpressionsReadTheirLocals() throws MolangException {
+		MolangMultiStatement statement = (MolangMultiStatement)this.parser
+				.parseExpression("temp.context_test_a = 3; temp.context_test_b = temp.context_test_a * 2; "
+						+ "return temp.context_test_b + temp.context_test_a");
+
+		assertEquals(9, statement.get());
+		assertEquals(9, statement.get(new MolangContext()));
+		assertFalse(MolangParser.VARIABLES.containsKey("temp.context_test_a"), "The local was read as a variable");
+	}
+}
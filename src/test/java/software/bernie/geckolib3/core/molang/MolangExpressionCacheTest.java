@@ -0,0 +1,76 @@
+package software.bernie.geckolib3.core.molang;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import org.junit.jupiter.api.Test;
+import software.bernie.geckolib3.core.molang.expressions.MolangExpression;
+import software.bernie.geckolib3.core.molang.expressions.MolangMultiStatement;
+
+class MolangExpressionCacheTest {
+	@Test
+	void normalizesTheWayTheParserReads() {
+		assertEquals("query.a * 2", MolangExpressionCache.normalize("  Query.A\t*\n 2 "));
+		assertEquals("temp.b = 1;return temp.b", MolangExpressionCache.normalize(";temp.B = 1 ;; ; return  temp.b;"));
+		assertEquals("", MolangExpressionCache.normalize(" ; ;"));
+	}
+
+	@Test
+	void sharesExpressionsWithTheSameNormalizedSource() throws MolangException {
+		MolangParser parser = new MolangParser(new MolangExpressionCache());
+		MolangExpression expression = parser.parseExpression("query.cache_test_x * 2");
+
+		assertSame(expression, parser.parseExpression("QUERY.CACHE_TEST_X  *  2;"));
+		assertNotSame(expression, parser.parseExpression("query.cache_test_x * 3"));
+		assertNotSame(expression, new MolangParser(null).parseExpression("query.cache_test_x * 2"),
+				"A parser without a cache shared an expression");
+
+		MolangExpressionCacheStats stats = parser.getExpressionCache().getStats();
+
+		assertEquals(1, stats.hits());
+		assertEquals(2, stats.misses());
+		assertEquals(2, stats.size());
+
+		// Expressions parsed with other settings can't be reused
+		parser.setOptimizeExpressions(true);
+		assertNotSame(expression, parser.parseExpression("query.cache_test_x * 2"));
+	}
+
+	@Test
+	void sharedExpressionsKeepTheirLocalsPerEvaluation() throws MolangException {
+		MolangParser parser = new MolangParser(new MolangExpressionCache());
+		String source = "temp.cache_test_a = query.cache_test_y; return temp.cache_test_a * 2";
+		MolangMultiStatement expression = (MolangMultiStatement)parser.parseExpression(source);
+		LazyVariable y = parser.getVariable("query.cache_test_y", null);
+		MolangContext first = new MolangContext();
+		MolangContext second = new MolangContext();
+
+		assertSame(expression, parser.parseExpression(source));
+
+		y.set(5);
+		first.setValue(y, 1);
+		// Evaluates the same expression in the other context while reading the query
+		second.setValue(y, () -> 3 + expression.get(first));
+
+		assertEquals(2, expression.get(first));
+		assertEquals(10, expression.get(second));
+		assertEquals(10, expression.get());
+	}
+
+	@Test
+	void evictsTheLeastRecentlyUsedExpression() throws MolangException {
+		MolangParser parser = new MolangParser(new MolangExpressionCache(2));
+		MolangExpression first = parser.parseExpression("query.cache_test_x + 1");
+		MolangExpression second = parser.parseExpression("query.cache_test_x + 2");
+
+		assertSame(first, parser.parseExpression("query.cache_test_x + 1"));
+
+		parser.parseExpression("query.cache_test_x + 3");
+
+		assertSame(first, parser.parseExpression("query.cache_test_x + 1"));
+		assertNotSame(second, parser.parseExpression("query.cache_test_x + 2"), "The second expression was kept");
+		assertEquals(2, parser.getExpressionCache().size());
+		assertEquals(2, parser.getExpressionCache().getStats().evictions());
+	}
+}
@@ -0,0 +1,161 @@
+package software.bernie.geckolib3.core.molang;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.mclib.math.Group;
+import com.eliotlash.mclib.math.IValue;
+import com.eliotlash.mclib.math.Negate;
+import com.eliotlash.mclib.math.Negative;
+import com.eliotlash.mclib.math.Operation;
+import com.eliotlash.mclib.math.Operator;
+import com.eliotlash.mclib.math.Ternary;
+import org.junit.jupiter.api.Test;
+import software.bernie.geckolib3.core.molang.expressions.MolangAssignment;
+import software.bernie.geckolib3.core.molang.expressions.MolangMultiStatement;
+import software.bernie.geckolib3.core.molang.expressions.MolangValue;
+import software.bernie.geckolib3.core.molang.functions.CosDegrees;
+import software.bernie.geckolib3.core.molang.functions.SinDegrees;
+
+import java.util.function.Function;
+
+/**
+ * Checks that optimized expressions give exactly the same results as the
+ * expressions they were optimized from
+ */
+class MolangOptimizerTest {
+	private static final double[] INPUTS = {-2, -0.5, 0, 0.000001, 1, 2.5, 3, 90};
+
+	private final MolangParser parser = new MolangParser(null);
+	private final LazyVariable x = this.parser.getVariable("query.optimizer_test_x", null);
+
+	@Test
+	void folding() {
+		MolangOptimizationStats stats = assertMatchesOriginal(statement -> {
+			IValue folded = operator(Operation.ADD, operator(Operation.MUL, new Constant(2), new Constant(3)),
+					new Negative(new Group(new Constant(4))));
+			IValue difference = new Group(operator(Operation.SUB, this.x, new Constant(0)));
+			IValue identities = operator(Operation.ADD, operator(Operation.MUL, difference, new Constant(1)),
+					operator(Operation.DIV, new Negate(new Constant(0)), new Constant(0)));
+
+			statement.expressions.add(value(operator(Operation.ADD, folded, identities)));
+
+			return statement;
+		});
+
+		assertTrue(stats.nodesAfter() < stats.nodesBefore(), "Nothing was folded");
+	}
+
+	@Test
+	void functions() throws Exception {
+		SinDegrees sin = new SinDegrees(new IValue[] {operator(Operation.MUL, new Constant(45), new Constant(2))},
+				"math.sin");
+		CosDegrees cos = new CosDegrees(new IValue[] {operator(Operation.MUL, this.x, new Constant(1))}, "math.cos");
+		IValue[] sinArgs = MolangNodes.getFunctionArgs(sin);
+		IValue[] cosArgs = MolangNodes.getFunctionArgs(cos);
+		IValue sinArg = sinArgs[0];
+		IValue cosArg = cosArgs[0];
+
+		// The same function nodes are in both expressions, as they would be if shared
+		// through the expression cache
+		assertMatchesOriginal(statement -> {
+			statement.expressions.add(value(operator(Operation.ADD, sin, cos)));
+
+			return statement;
+		});
+
+		assertSame(sinArg, sinArgs[0], "The optimizer changed a function's arguments in place");
+		assertSame(cosArg, cosArgs[0], "The optimizer changed a function's arguments in place");
+	}
+
+	@Test
+	void ternaries() {
+		for (double condition : new double[] {0, -0.0, 0.000001, -1, 2, Double.NaN}) {
+			assertMatchesOriginal(statement -> {
+				IValue ternary = new Ternary(new Constant(condition), operator(Operation.ADD, this.x, new Constant(1)),
+						operator(Operation.SUB, this.x, new Constant(1)));
+
+				statement.expressions.add(value(ternary));
+
+				return statement;
+			});
+		}
+
+		assertMatchesOriginal(statement -> {
+			IValue condition = operator(Operation.SUB, new Constant(0.5), new Constant(0.5));
+
+			statement.expressions.add(value(new Ternary(new Negate(condition), this.x, new Negative(this.x))));
+
+			return statement;
+		});
+	}
+
+	@Test
+	void hoisting() {
+		MolangOptimizationStats stats = assertMatchesOriginal(statement -> {
+			LazyVariable first = statement.addLocal("temp.first");
+			// Named like the optimizer's own locals used to be
+			LazyVariable named = statement.addLocal("temp.hoisted_0");
+
+			statement.expressions.add(new MolangAssignment(this.parser, named, new Constant(5)));
+			statement.expressions.add(new MolangAssignment(this.parser, first, operator(Operation.MUL,
+					repeated(), new Constant(3))));
+			statement.expressions.add(value(operator(Operation.ADD, operator(Operation.ADD, repeated(), first),
+					named)));
+
+			return statement;
+		});
+
+		assertTrue(stats.hoistedCount() > 0, "Nothing was hoisted");
+	}
+
+	@Test
+	void assignedVariablesArentHoisted() {
+		LazyVariable result = this.parser.getVariable("query.optimizer_test_result", null);
+
+		assertMatchesOriginal(statement -> {
+			statement.expressions.add(new MolangAssignment(this.parser, result, repeated()));
+			statement.expressions.add(new MolangAssignment(this.parser, result, operator(Operation.ADD, result,
+					new Constant(1))));
+			statement.expressions.add(value(operator(Operation.MUL, operator(Operation.ADD, result,
+					new Constant(1)), repeated())));
+
+			return statement;
+		});
+	}
+
+	// A subexpression big enough to be hoisted
+	private IValue repeated() {
+		return operator(Operation.ADD, operator(Operation.MUL, this.x, new Constant(2)), new Constant(1));
+	}
+
+	/**
+	 * Builds the expression twice, optimizes one and checks both give the same
+	 * results
+	 *
+	 * @return the stats of the optimization
+	 */
+	private MolangOptimizationStats assertMatchesOriginal(
+			Function<MolangMultiStatement, MolangMultiStatement> builder) {
+		MolangMultiStatement original = builder.apply(new MolangMultiStatement(this.parser));
+		MolangMultiStatement optimized = builder.apply(new MolangMultiStatement(this.parser));
+		MolangOptimizationStats stats = MolangOptimizer.optimize(optimized);
+
+		for (double input : INPUTS) {
+			this.x.set(input);
+			assertEquals(original.get(), optimized.get(), "Different result for x = " + input);
+		}
+
+		return stats;
+	}
+
+	private MolangValue value(IValue value) {
+		return new MolangValue(this.parser, value);
+	}
+
+	private static Operator operator(Operation operation, IValue a, IValue b) {
+		return new Operator(operation, a, b);
+	}
+}
@@ -0,0 +1,278 @@
+package software.bernie.geckolib3.core.processor;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import software.bernie.geckolib3.core.PlayState;
+import software.bernie.geckolib3.core.controller.AnimationController;
+import software.bernie.geckolib3.core.manager.AnimationLodPolicy;
+import software.bernie.geckolib3.core.manager.ModelState;
+import software.bernie.geckolib3.core.molang.LazyVariable;
+import software.bernie.geckolib3.core.molang.MolangParser;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+class AnimationProcessorTest {
+	private final MolangParser parser = new MolangParser(null);
+
+	@Test
+	void singleTicksSeeQueriesSetAfterABatchTick() {
+		LazyVariable query = this.parser.getVariable("query.processor_test", null);
+		double[] value = {1};
+		double[] seen = new double[1];
+		TestModel model = new TestModel("body");
+		TestAnimatable animatable = new TestAnimatable(model);
+		AnimationProcessor<TestAnimatable> processor = model.getAnimationProcessor();
+
+		model.queries = (entity, seekTime) -> query.set(value[0]);
+		animatable.predicate = event -> {
+			seen[0] = query.get();
+
+			return PlayState.STOP;
+		};
+
+		processor.tickAnimations(List.of(new AnimationTickEntry<>(animatable, 0, animatable.event())), 0,
+				this.parser, false);
+		assertEquals(1, seen[0], "The batch tick didn't see its query");
+
+		// The single tick path sets the queries before the context is bound
+		value[0] = 2;
+		processor.preAnimationSetup(animatable, 1);
+		processor.tickAnimation(animatable, 0, 1, animatable.event(), this.parser, false);
+		assertEquals(2, seen[0], "The value the batch tick left in the context hid the query");
+
+		value[0] = 3;
+		processor.tickAnimations(List.of(new AnimationTickEntry<>(animatable, 0, animatable.event())), 2,
+				this.parser, false);
+		assertEquals(3, seen[0], "The batch tick didn't see its query");
+	}
+
+	@Test
+	void eachProcessorAnimatesAnAnimatableOncePerFrame() {
+		int[] calls = new int[1];
+		TestModel model = new TestModel("body");
+		TestModel otherModel = new TestModel("body");
+		TestAnimatable animatable = new TestAnimatable(model);
+		AnimationProcessor<TestAnimatable> processor = model.getAnimationProcessor();
+
+		animatable.predicate = event -> {
+			calls[0]++;
+
+			return PlayState.STOP;
+		};
+
+		processor.tickAnimation(animatable, 0, 1, animatable.event(), this.parser, false);
+		processor.tickAnimation(animatable, 0, 1, animatable.event(), this.parser, false);
+		assertEquals(1, calls[0], "The animatable was animated twice on one frame");
+
+		otherModel.getAnimationProcessor().tickAnimation(animatable, 0, 1, animatable.event(), this.parser, false);
+		assertEquals(2, calls[0], "Another model couldn't animate the animatable on the same frame");
+
+		processor.tickAnimation(animatable, 0, 2, animatable.event(), this.parser, false);
+		assertEquals(3, calls[0], "A new seek time didn't start a new frame");
+
+		processor.beginFrame();
+		processor.tickAnimation(animatable, 0, 2, animatable.event(), this.parser, false);
+		assertEquals(4, calls[0], "beginFrame didn't start a new frame");
+
+		List<AnimationTickEntry<TestAnimatable>> entries = List.of(new AnimationTickEntry<>(animatable, 0,
+				animatable.event()), new AnimationTickEntry<>(animatable, 0, animatable.event()));
+		BatchTickStats stats = processor.tickAnimations(entries, 3, this.parser, false);
+
+		assertEquals(5, calls[0], "The batch animated the same animatable twice");
+		assertEquals(1, stats.skippedCount());
+	}
+
+	@Test
+	void levelOfDetailReusesThePoseBetweenUpdates() {
+		TestModel model = spinningModel();
+		TestAnimatable animatable = new TestAnimatable(model);
+		AnimationProcessor<TestAnimatable> processor = model.getAnimationProcessor();
+		IBone bone = processor.getBone("body");
+		float[] rotations = new float[8];
+
+		animatable.predicate = TestModel.play("spin");
+		animatable.getData().setLodPolicy(AnimationLodPolicy.byDistance(8, 16, 32, false));
+		animatable.getData().setLodScore(12);
+
+		for (int tick = 0; tick < rotations.length; tick++) {
+			processor.tickAnimation(animatable, 0, tick + 1, animatable.event(), this.parser, false);
+			rotations[tick] = bone.getRotationX();
+		}
+
+		for (int tick = 1; tick < rotations.length; tick += 2) {
+			assertEquals(rotations[tick - 1], rotations[tick], "Frame " + tick + " was evaluated");
+		}
+
+		// The animation only starts moving a few evaluations in
+		assertNotEquals(rotations[3], rotations[4], "The pose wasn't updated after two frames");
+		assertNotEquals(rotations[5], rotations[6], "The pose wasn't updated after two frames");
+
+		animatable.getData().setLodScore(0);
+		processor.tickAnimation(animatable, 0, 9, animatable.event(), this.parser, false);
+		assertNotEquals(rotations[7], bone.getRotationX(), "A full rate animatable wasn't evaluated");
+	}
+
+	@Test
+	void levelOfDetailUsesTheAnimatablesOwnDistance() {
+		LazyVariable distance = this.parser.getVariable("query.distance_from_camera", null);
+		TestModel model = spinningModel();
+		TestAnimatable animatable = new TestAnimatable(model);
+		AnimationProcessor<TestAnimatable> processor = model.getAnimationProcessor();
+		IBone bone = processor.getBone("body");
+		float[] rotations = new float[4];
+
+		// Only the animatable's own context says it's far away
+		distance.set(0);
+		model.queries = (entity, seekTime) -> distance.set(100);
+		animatable.predicate = TestModel.play("spin");
+		animatable.getData().setLodPolicy(AnimationLodPolicy.byDistance(8, 16, 32, false));
+
+		for (int tick = 0; tick < rotations.length; tick++) {
+			processor.tickAnimations(List.of(new AnimationTickEntry<>(animatable, 0, animatable.event())), tick + 1,
+					this.parser, false);
+			rotations[tick] = bone.getRotationX();
+		}
+
+		for (int tick = 2; tick < rotations.length; tick++) {
+			assertEquals(rotations[1], rotations[tick], "A frozen animatable was evaluated on frame " + tick);
+		}
+
+		assertEquals(0, distance.get(), "The distance leaked out of the animatable's context");
+	}
+
+	@Test
+	void posesAtRestAreNotEvaluatedOrWrittenAgain() {
+		int[] calls = new int[1];
+		boolean[] spinning = {true};
+		TestModel model = spinningModel();
+		TestAnimatable animatable = new TestAnimatable(model);
+		AnimationProcessor<TestAnimatable> processor = model.getAnimationProcessor();
+		IBone bone = processor.getBone("body");
+		AnimationController.IAnimationPredicate<TestAnimatable> spin = TestModel.play("spin");
+
+		processor.skipRedundantBoneWrites = true;
+		animatable.getData().setResetSpeedInTicks(1);
+		animatable.predicate = event -> {
+			calls[0]++;
+
+			return spinning[0] ? spin.test(event) : PlayState.STOP;
+		};
+
+		for (int tick = 1; tick <= 3; tick++) {
+			processor.tickAnimation(animatable, 0, tick, animatable.event(), this.parser, false);
+		}
+
+		assertNotEquals(0, bone.getRotationX(), "The animation didn't move the bone");
+
+		spinning[0] = false;
+
+		for (int tick = 4; tick <= 6; tick++) {
+			processor.tickAnimation(animatable, 0, tick, animatable.event(), this.parser, false);
+		}
+
+		assertEquals(0, bone.getRotationX(), "The bone didn't reset");
+		assertTrue(animatable.getData().getModelState(processor).isPoseAtRest());
+
+		// Nothing can have changed, so the bone keeps what something else wrote to it
+		bone.setRotationX(5);
+		processor.tickAnimation(animatable, 0, 7, animatable.event(), this.parser, false);
+		assertEquals(5, bone.getRotationX(), "The pose at rest was written again");
+		assertEquals(7, calls[0], "The controller wasn't evaluated while at rest");
+
+		processor.skipRedundantBoneWrites = false;
+		processor.tickAnimation(animatable, 0, 8, animatable.event(), this.parser, false);
+		assertEquals(0, bone.getRotationX(), "The pose at rest wasn't written");
+	}
+
+	@Test
+	void modelsWithBonesOfTheSameNameKeepTheirOwnSnapshots() {
+		boolean[] spinning = {true};
+		AnimationController.IAnimationPredicate<TestAnimatable> spin = TestModel.play("spin");
+		TestAnimatable animatable = new TestAnimatable(spinningModel());
+		TestModel otherModel = new TestModel("body");
+		IBone body = animatable.getModel().getAnimationProcessor().getBone("body");
+		IBone otherBody = otherModel.getAnimationProcessor().getBone("body");
+
+		animatable.getData().setResetSpeedInTicks(1);
+		animatable.predicate = event -> spinning[0] ? spin.test(event) : PlayState.STOP;
+
+		for (int tick = 1; tick <= 6; tick++) {
+			tick(animatable, animatable.getModel(), tick);
+			tick(animatable, otherModel, tick);
+		}
+
+		assertNotSame(animatable.getData().getBoneSnapshots(animatable.getModel().getAnimationProcessor())[0],
+				animatable.getData().getBoneSnapshots(otherModel.getAnimationProcessor())[0]);
+		assertNotEquals(0, body.getRotationX(), "The animation didn't move the bone");
+		assertEquals(body.getRotationX(), otherBody.getRotationX(), "The models were animated differently");
+
+		spinning[0] = false;
+
+		for (int tick = 7; tick <= 9; tick++) {
+			tick(animatable, animatable.getModel(), tick);
+			tick(animatable, otherModel, tick);
+		}
+
+		assertEquals(0, body.getRotationX(), "The bone didn't reset");
+		assertEquals(0, otherBody.getRotationX(), "The other model's bone didn't reset");
+	}
+
+	@Test
+	void submittedAnimationsOnlyShowOnceCompleted() {
+		TestModel model = spinningModel();
+		TestAnimatable animatable = new TestAnimatable(model);
+		AnimationProcessor<TestAnimatable> processor = model.getAnimationProcessor();
+		ModelState state = animatable.getData().getModelState(processor);
+		IBone bone = processor.getBone("body");
+		List<AnimationTickEntry<TestAnimatable>> entries = List.of(new AnimationTickEntry<>(animatable, 0,
+				animatable.event()));
+		float shownRotation = 0;
+
+		animatable.predicate = TestModel.play("spin");
+
+		PendingAnimationTick pending = processor.submitAnimations(entries, 1, this.parser, false,
+				ForkJoinPool.commonPool());
+
+		pending.complete();
+		assertTrue(processor.applyFrontPose(animatable.getData()), "The first completed pose wasn't shown");
+
+		for (int tick = 2; tick <= 6; tick++) {
+			pending = processor.submitAnimations(entries, tick, this.parser, false, ForkJoinPool.commonPool());
+
+			// The renderer keeps drawing the last completed pose while the next is evaluated
+			while (!pending.isDone()) {
+				Thread.onSpinWait();
+			}
+
+			assertEquals(shownRotation, bone.getRotationX(), "The evaluation wrote to the bones");
+			assertTrue(processor.applyFrontPose(animatable.getData()));
+			assertEquals(shownRotation, bone.getRotationX(), "The front pose changed before completing");
+
+			pending.complete();
+			pending.complete();
+
+			assertNotSame(state.getFrontPose(), state.getPose(), "The buffers weren't swapped");
+			assertTrue(processor.applyFrontPose(animatable.getData()));
+			assertEquals(state.getFrontPose().getRotation(0, Pose.X), bone.getRotationX());
+
+			shownRotation = bone.getRotationX();
+		}
+
+		assertNotEquals(0, shownRotation, "The animation never moved the bone");
+	}
+
+	private void tick(TestAnimatable animatable, TestModel model, double seekTime) {
+		model.getAnimationProcessor().tickAnimation(animatable, 0, seekTime, animatable.event(), this.parser, false);
+	}
+
+	// Rotates the body from 0 to 20 degrees over 20 ticks
+	private static TestModel spinningModel() {
+		return new TestModel("body").addAnimation(TestModel.animation("spin", 20,
+				TestModel.rotateX("body", 20, 0, 20)));
+	}
+}
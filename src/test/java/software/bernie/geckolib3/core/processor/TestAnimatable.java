@@ -0,0 +1,54 @@
+package software.bernie.geckolib3.core.processor;
+
+import software.bernie.geckolib3.core.IAnimatable;
+import software.bernie.geckolib3.core.PlayState;
+import software.bernie.geckolib3.core.controller.AnimationController;
+import software.bernie.geckolib3.core.event.predicate.AnimationEvent;
+import software.bernie.geckolib3.core.manager.AnimationData;
+import software.bernie.geckolib3.core.manager.AnimationFactory;
+import software.bernie.geckolib3.core.manager.SingletonAnimationFactory;
+
+import java.util.List;
+
+/**
+ * An animatable with one controller, for tests. Its animations are looked up in
+ * its {@link TestModel}.
+ */
+public class TestAnimatable implements IAnimatable {
+	static {
+		AnimationController.addModelFetcher((AnimationController.ModelFetcher<TestAnimatable>) animatable ->
+				animatable instanceof TestAnimatable test ? test.model : null);
+	}
+
+	private final TestModel model;
+	private final AnimationFactory factory = new SingletonAnimationFactory(this);
+	public AnimationController.IAnimationPredicate<TestAnimatable> predicate = event -> PlayState.STOP;
+	public float transitionLengthTicks = 0;
+
+	public TestAnimatable(TestModel model) {
+		this.model = model;
+	}
+
+	@Override
+	public void registerControllers(AnimationData data) {
+		data.addAnimationController(new AnimationController<>(this, "main", this.transitionLengthTicks,
+				event -> this.predicate.test(event)));
+	}
+
+	@Override
+	public AnimationFactory getFactory() {
+		return this.factory;
+	}
+
+	public TestModel getModel() {
+		return this.model;
+	}
+
+	public AnimationData getData() {
+		return this.factory.getOrCreateAnimationData(0);
+	}
+
+	public AnimationEvent<TestAnimatable> event() {
+		return new AnimationEvent<>(this, 0, 0, 0, false, List.of());
+	}
+}
@@ -0,0 +1,180 @@
+package software.bernie.geckolib3.core.processor;
+
+import software.bernie.geckolib3.core.snapshot.BoneSnapshot;
+
+/**
+ * A bone that only stores its values, for tests
+ */
+public class TestBone implements IBone {
+	private final String name;
+	private float rotationX;
+	private float rotationY;
+	private float rotationZ;
+	private float positionX;
+	private float positionY;
+	private float positionZ;
+	private float scaleX = 1;
+	private float scaleY = 1;
+	private float scaleZ = 1;
+	private BoneSnapshot initialSnapshot;
+
+	public TestBone(String name) {
+		this.name = name;
+	}
+
+	@Override
+	public float getRotationX() {
+		return this.rotationX;
+	}
+
+	@Override
+	public float getRotationY() {
+		return this.rotationY;
+	}
+
+	@Override
+	public float getRotationZ() {
+		return this.rotationZ;
+	}
+
+	@Override
+	public float getPositionX() {
+		return this.positionX;
+	}
+
+	@Override
+	public float getPositionY() {
+		return this.positionY;
+	}
+
+	@Override
+	public float getPositionZ() {
+		return this.positionZ;
+	}
+
+	@Override
+	public float getScaleX() {
+		return this.scaleX;
+	}
+
+	@Override
+	public float getScaleY() {
+		return this.scaleY;
+	}
+
+	@Override
+	public float getScaleZ() {
+		return this.scaleZ;
+	}
+
+	@Override
+	public void setRotationX(float value) {
+		this.rotationX = value;
+	}
+
+	@Override
+	public void setRotationY(float value) {
+		this.rotationY = value;
+	}
+
+	@Override
+	public void setRotationZ(float value) {
+		this.rotationZ = value;
+	}
+
+	@Override
+	public void setPositionX(float value) {
+		this.positionX = value;
+	}
+
+	@Override
+	public void setPositionY(float value) {
+		this.positionY = value;
+	}
+
+	@Override
+	public void setPositionZ(float value) {
+		this.positionZ = value;
+	}
+
+	@Override
+	public void setScaleX(float value) {
+		this.scaleX = value;
+	}
+
+	@Override
+	public void setScaleY(float value) {
+		this.scaleY = value;
+	}
+
+	@Override
+	public void setScaleZ(float value) {
+		this.scaleZ = value;
+	}
+
+	@Override
+	public void setPivotX(float value) {}
+
+	@Override
+	public void setPivotY(float value) {}
+
+	@Override
+	public void setPivotZ(float value) {}
+
+	@Override
+	public float getPivotX() {
+		return 0;
+	}
+
+	@Override
+	public float getPivotY() {
+		return 0;
+	}
+
+	@Override
+	public float getPivotZ() {
+		return 0;
+	}
+
+	@Override
+	public boolean isHidden() {
+		return false;
+	}
+
+	@Override
+	public boolean cubesAreHidden() {
+		return false;
+	}
+
+	@Override
+	public boolean childBonesAreHiddenToo() {
+		return false;
+	}
+
+	@Override
+	public void setHidden(boolean hidden) {}
+
+	@Override
+	public void setCubesHidden(boolean hidden) {}
+
+	@Override
+	public void setHidden(boolean selfHidden, boolean skipChildRendering) {}
+
+	@Override
+	public void setModelRendererName(String modelRendererName) {}
+
+	@Override
+	public void saveInitialSnapshot() {
+		this.initialSnapshot = new BoneSnapshot(this);
+	}
+
+	@Override
+	public BoneSnapshot getInitialSnapshot() {
+		return this.initialSnapshot;
+	}
+
+	@Override
+	public String getName() {
+		return this.name;
+	}
+}
@@ -0,0 +1,105 @@
+package software.bernie.geckolib3.core.processor;
+
+import com.eliotlash.mclib.math.Constant;
+import com.eliotlash.mclib.math.IValue;
+import it.unimi.dsi.fastutil.objects.Object2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectArrayList;
+import software.bernie.geckolib3.core.IAnimatable;
+import software.bernie.geckolib3.core.IAnimatableModel;
+import software.bernie.geckolib3.core.PlayState;
+import software.bernie.geckolib3.core.builder.Animation;
+import software.bernie.geckolib3.core.builder.AnimationBuilder;
+import software.bernie.geckolib3.core.builder.ILoopType;
+import software.bernie.geckolib3.core.controller.AnimationController;
+import software.bernie.geckolib3.core.keyframe.BoneAnimation;
+import software.bernie.geckolib3.core.keyframe.KeyFrame;
+import software.bernie.geckolib3.core.keyframe.VectorKeyFrameList;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjDoubleConsumer;
+
+/**
+ * A model made of {@link TestBone}s with animations built in code, for tests
+ */
+public class TestModel implements IAnimatableModel<TestAnimatable> {
+	private final AnimationProcessor<TestAnimatable> processor = new AnimationProcessor<>(this);
+	private final Map<String, Animation> animations = new Object2ObjectOpenHashMap<>();
+	// Called by setMolangQueries
+	public ObjDoubleConsumer<IAnimatable> queries = (animatable, seekTime) -> {};
+
+	public TestModel(String... boneNames) {
+		for (String boneName : boneNames) {
+			this.processor.registerModelRenderer(new TestBone(boneName));
+		}
+	}
+
+	public TestModel addAnimation(Animation animation) {
+		this.animations.put(animation.animationName, animation);
+
+		return this;
+	}
+
+	@Override
+	public AnimationProcessor<TestAnimatable> getAnimationProcessor() {
+		return this.processor;
+	}
+
+	@Override
+	public Animation getAnimation(String name, IAnimatable animatable) {
+		return this.animations.get(name);
+	}
+
+	@Override
+	public void setMolangQueries(IAnimatable animatable, double seekTime) {
+		this.queries.accept(animatable, seekTime);
+	}
+
+	/**
+	 * Creates a predicate that keeps playing the given animation
+	 */
+	public static AnimationController.IAnimationPredicate<TestAnimatable> play(String animationName) {
+		return event -> {
+			event.getController().setAnimation(new AnimationBuilder().loop(animationName));
+
+			return PlayState.CONTINUE;
+		};
+	}
+
+	/**
+	 * Creates a looping animation out of the given bone animations
+	 */
+	public static Animation animation(String name, double length, BoneAnimation... boneAnimations) {
+		Animation animation = new Animation();
+		animation.animationName = name;
+		animation.animationLength = length;
+		animation.loop = ILoopType.EDefaultLoopTypes.LOOP;
+		animation.boneAnimations = new ObjectArrayList<>(boneAnimations);
+
+		return animation;
+	}
+
+	/**
+	 * Creates a bone animation that only rotates around X, through one keyframe per
+	 * pair of values, each the given amount of ticks long
+	 */
+	public static BoneAnimation rotateX(String boneName, double keyFrameLength, double... values) {
+		List<KeyFrame<IValue>> keyFrames = new ObjectArrayList<>();
+
+		for (int i = 0; i + 1 < values.length; i++) {
+			keyFrames.add(new KeyFrame<>(keyFrameLength, new Constant(values[i]), new Constant(values[i + 1])));
+		}
+
+		double length = keyFrameLength * keyFrames.size();
+		BoneAnimation boneAnimation = new BoneAnimation(boneName);
+		boneAnimation.rotationKeyFrames = new VectorKeyFrameList<>(keyFrames, constant(length), constant(length));
+		boneAnimation.positionKeyFrames = new VectorKeyFrameList<>();
+		boneAnimation.scaleKeyFrames = new VectorKeyFrameList<>();
+
+		return boneAnimation;
+	}
+
+	private static List<KeyFrame<IValue>> constant(double length) {
+		return new ObjectArrayList<>(List.of(new KeyFrame<>(length, new Constant(0), new Constant(0))));
+	}
+}